@@ -0,0 +1,66 @@
+package edu.info0502.pocker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Évaluation et comparaison de mains de 5 cartes, une main par joueur
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BancMain {
+
+    @Param({"2", "6", "10"})
+    int nombreJoueurs;
+
+    private List<List<Carte>> cartesParJoueur;
+    private Main[] mains;
+
+    @Setup(Level.Iteration)
+    public void distribuer() {
+        Talon talon = new Talon(1);
+        cartesParJoueur = new ArrayList<>();
+        mains = new Main[nombreJoueurs];
+        for (int i = 0; i < nombreJoueurs; i++) {
+            List<Carte> cartes = new ArrayList<>();
+            for (int j = 0; j < Main.getTailleMain(); j++) {
+                cartes.add(talon.tirerCarte());
+            }
+            cartesParJoueur.add(cartes);
+            mains[i] = new Main();
+            mains[i].ajouterCartes(cartes);
+        }
+    }
+
+    // construction des mains comprise : le rang est calculé à la cinquième carte
+    @Benchmark
+    public void evaluerMain(Blackhole trou) {
+        for (List<Carte> cartes : cartesParJoueur) {
+            Main main = new Main();
+            main.ajouterCartes(cartes);
+            trou.consume(main.evaluerMain());
+        }
+    }
+
+    @Benchmark
+    public Main comparerAvec() {
+        Main meilleure = mains[0];
+        for (int i = 1; i < mains.length; i++) {
+            if (mains[i].comparerAvec(meilleure) > 0) {
+                meilleure = mains[i];
+            }
+        }
+        return meilleure;
+    }
+}
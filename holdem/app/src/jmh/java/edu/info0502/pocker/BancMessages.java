@@ -0,0 +1,61 @@
+package edu.info0502.pocker;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.gson.Gson;
+
+// Décodage des commandes reçues par le serveur, une commande JOIN_TABLE par joueur :
+// l'ancien chemin par Gson et le décodeur du serveur (à comparer avec gc.alloc.rate.norm)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BancMessages {
+
+    @Param({"2", "6", "10"})
+    int nombreJoueurs;
+
+    private final Gson gson = new Gson();
+    private byte[][] messages;
+
+    @Setup
+    public void preparer() {
+        messages = new byte[nombreJoueurs][];
+        for (int i = 0; i < nombreJoueurs; i++) {
+            String json = "{\"type\":\"JOIN_TABLE\",\"data\":{\"player\":\"joueur" + i + "\",\"tableId\":\"3f2a9c1b\"}}";
+            messages[i] = json.getBytes();
+        }
+    }
+
+    // ancien chemin de Publisher.handleIncomingMessage
+    @Benchmark
+    public void gsonMessagePayload(Blackhole trou) {
+        for (byte[] message : messages) {
+            String texte = new String(message).trim();
+            trou.consume(gson.fromJson(texte, MessagePayload.class));
+        }
+    }
+
+    @Benchmark
+    public void decodeurCommande(Blackhole trou) {
+        for (byte[] message : messages) {
+            trou.consume(DecodeurCommande.decoder(message));
+        }
+    }
+
+    // la forme lue par Gson avant DecodeurCommande
+    static class MessagePayload {
+        private String type;
+        private Map<String, String> data;
+    }
+}
@@ -0,0 +1,85 @@
+package edu.info0502.pocker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Abattage d'une partie distribuée jusqu'à la river
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BancPartie {
+
+    @Param({"2", "6", "10"})
+    int nombreJoueurs;
+
+    private PokerHoldem partie;
+    private List<Joueur> joueurs;
+    private CartesCommunes cartesCommunes;
+    // autre tableau de même taille : en alternant, chaque appel reconstruit et évalue l'état du joueur
+    private CartesCommunes autresCartesCommunes;
+    private boolean alterner;
+
+    @Setup(Level.Iteration)
+    public void distribuer() {
+        List<String> noms = new ArrayList<>();
+        for (int i = 0; i < nombreJoueurs; i++) {
+            noms.add("joueur" + i);
+        }
+        partie = new PokerHoldem(noms);
+        partie.demarrerPartie();
+        partie.distribuerFlop();
+        partie.distribuerTurn();
+        partie.distribuerRiver();
+
+        joueurs = new ArrayList<>();
+        for (String nom : noms) {
+            joueurs.add(partie.getJoueurParNom(nom));
+        }
+        cartesCommunes = new CartesCommunes();
+        long prises = 0L;
+        for (Carte carte : partie.getCartesCommunes()) {
+            cartesCommunes.ajouterCarte(carte);
+            prises |= carte.getMasque();
+        }
+        for (Joueur joueur : joueurs) {
+            for (Carte carte : joueur.getCartesPrivees()) {
+                prises |= carte.getMasque();
+            }
+        }
+        autresCartesCommunes = new CartesCommunes();
+        for (int indice = 0; autresCartesCommunes.getCartes().size() < cartesCommunes.getCartes().size(); indice++) {
+            if ((prises & (1L << indice)) == 0) {
+                autresCartesCommunes.ajouterCarte(Carte.parIndice(indice));
+            }
+        }
+    }
+
+    // évaluation complète des 7 cartes de chaque joueur (sans l'alternance, l'état serait déjà à jour)
+    @Benchmark
+    public void evaluerMeilleureMain(Blackhole trou) {
+        alterner = !alterner;
+        CartesCommunes tableau = alterner ? autresCartesCommunes : cartesCommunes;
+        for (Joueur joueur : joueurs) {
+            joueur.evaluerMeilleureMain(tableau);
+            trou.consume(joueur.getRang());
+        }
+    }
+
+    // sans le cache de PokerHoldem.abattage(), texte compris
+    @Benchmark
+    public String determinerGagnant() {
+        return partie.calculerAbattage().toString();
+    }
+}
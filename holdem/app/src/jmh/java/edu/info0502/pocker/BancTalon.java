@@ -0,0 +1,49 @@
+package edu.info0502.pocker;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Construction, mélange et distribution d'une main complète (cartes privées et tableau)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BancTalon {
+
+    @Param({"2", "6", "10"})
+    int nombreJoueurs;
+
+    private Talon talon;
+
+    @Setup(Level.Iteration)
+    public void preparer() {
+        talon = new Talon(1);
+    }
+
+    @Benchmark
+    public Talon construire() {
+        return new Talon(1);
+    }
+
+    @Benchmark
+    public void melanger() {
+        talon.reinitialiser();
+    }
+
+    @Benchmark
+    public void distribuer(Blackhole trou) {
+        talon.reinitialiser();
+        for (int i = 0; i < 2 * nombreJoueurs + 5; i++) {
+            trou.consume(talon.tirerCarte());
+        }
+    }
+}
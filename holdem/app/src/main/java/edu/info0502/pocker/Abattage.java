@@ -0,0 +1,101 @@
+package edu.info0502.pocker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Résultat de l'abattage (showdown) calculé en une seule passe : rang de chaque joueur,
+// ensemble des gagnants (plusieurs en cas de pot partagé) et texte construit à la demande.
+final class Abattage {
+    private final List<String> noms;
+    private final int[] rangs;
+    private final int meilleurRang;
+    private final List<String> gagnants;
+    private Map<String, String> resultats;
+    private String texte;
+
+    // rangs[i] est le rang de la meilleure main du joueur noms.get(i)
+    Abattage(List<String> noms, int[] rangs) {
+        if (noms.size() != rangs.length) {
+            throw new IllegalArgumentException("Un rang par joueur est nécessaire");
+        }
+        this.noms = List.copyOf(noms);
+        this.rangs = rangs.clone();
+
+        int meilleur = 0;
+        List<String> meilleurs = new ArrayList<>();
+        for (int i = 0; i < rangs.length; i++) {
+            if (rangs[i] > meilleur) {
+                meilleur = rangs[i];
+                meilleurs.clear();
+            }
+            if (rangs[i] == meilleur) {
+                meilleurs.add(this.noms.get(i));
+            }
+        }
+        meilleurRang = meilleur;
+        gagnants = Collections.unmodifiableList(meilleurs);
+    }
+
+    public int getNombreJoueurs() {
+        return rangs.length;
+    }
+
+    public int getRang(String nom) {
+        int i = noms.indexOf(nom);
+        if (i < 0) {
+            throw new IllegalArgumentException("Joueur inconnu: " + nom);
+        }
+        return rangs[i];
+    }
+
+    public CombinaisonPoker getCombinaison(String nom) {
+        return EvaluateurMain.combinaison(getRang(nom));
+    }
+
+    public int getMeilleurRang() {
+        return meilleurRang;
+    }
+
+    public CombinaisonPoker getCombinaisonGagnante() {
+        return EvaluateurMain.combinaison(meilleurRang);
+    }
+
+    public List<String> getGagnants() {
+        return gagnants;
+    }
+
+    public boolean estGagnant(String nom) {
+        return getRang(nom) == meilleurRang;
+    }
+
+    public boolean estPartage() {
+        return gagnants.size() > 1;
+    }
+
+    // combinaison de chaque joueur, dans l'ordre des places
+    public Map<String, String> getResultats() {
+        if (resultats == null) {
+            Map<String, String> map = new LinkedHashMap<>();
+            for (int i = 0; i < rangs.length; i++) {
+                map.put(noms.get(i), EvaluateurMain.combinaison(rangs[i]).toString());
+            }
+            resultats = Collections.unmodifiableMap(map);
+        }
+        return resultats;
+    }
+
+    @Override
+    public String toString() {
+        if (texte == null) {
+            if (estPartage()) {
+                texte = "Pot partagé entre " + String.join(", ", gagnants) + " avec " + getCombinaisonGagnante();
+            } else {
+                texte = gagnants.get(0) + " gagne avec " + getCombinaisonGagnante();
+            }
+        }
+        return texte;
+    }
+}
@@ -0,0 +1,71 @@
+package edu.info0502.pocker;
+
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Boîte aux lettres traitée par son propre fil virtuel : les tâches d'un acteur s'exécutent une à une
+// dans l'ordre d'arrivée, celles de deux acteurs différents en parallèle.
+class Acteur {
+    private static final Runnable ARRET = () -> { };
+
+    private final String nom;
+    private final BlockingQueue<Runnable> boite = new LinkedBlockingQueue<>();
+    private volatile boolean arrete;
+    private final Thread fil;
+
+    Acteur(String nom) {
+        this.nom = nom;
+        this.fil = Thread.ofVirtual().name(nom).start(this::traiter);
+    }
+
+    // false si l'acteur est arrêté : la tâche n'est pas exécutée
+    boolean envoyer(Runnable tache) {
+        if (arrete) {
+            return false;
+        }
+        boite.add(tache);
+        return true;
+    }
+
+    // les tâches déjà reçues sont traitées, les suivantes sont refusées
+    void arreter() {
+        arrete = true;
+        boite.add(ARRET);
+    }
+
+    // après arreter() : attend que les tâches déjà reçues soient traitées ; false si le délai a expiré
+    boolean attendreArret(Duration delai) throws InterruptedException {
+        return fil.join(delai);
+    }
+
+    int enAttente() {
+        return boite.size();
+    }
+
+    private void traiter() {
+        while (true) {
+            Runnable tache;
+            try {
+                tache = boite.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (tache == ARRET) {
+                return;
+            }
+            try {
+                tache.run();
+            } catch (RuntimeException e) {
+                System.err.println("Erreur dans l'acteur " + nom + " : " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return nom;
+    }
+}
@@ -0,0 +1,58 @@
+package edu.info0502.pocker;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Hachage cohérent : chaque shard place NOEUDS_VIRTUELS points sur un anneau de 64 bits et une clé
+// (identifiant de table, nom de joueur) appartient au premier point rencontré après son hachage.
+// Passer de n à n + 1 shards ne déplace qu'environ 1/(n + 1) des clés. Le hachage (FNV-1a puis
+// mélange de splitmix64) ne dépend pas de la JVM : tous les serveurs calculent le même anneau.
+final class AnneauCoherent {
+
+    static final int NOEUDS_VIRTUELS = 128;
+
+    private final TreeMap<Long, Integer> anneau = new TreeMap<>();
+    private final int nombreShards;
+
+    AnneauCoherent(int nombreShards) {
+        this(nombreShards, NOEUDS_VIRTUELS);
+    }
+
+    AnneauCoherent(int nombreShards, int noeudsVirtuels) {
+        if (nombreShards < 1 || noeudsVirtuels < 1) {
+            throw new IllegalArgumentException("Il faut au moins un shard et un nœud virtuel");
+        }
+        this.nombreShards = nombreShards;
+        for (int shard = 0; shard < nombreShards; shard++) {
+            for (int noeud = 0; noeud < noeudsVirtuels; noeud++) {
+                anneau.put(hacher("shard-" + shard + "#" + noeud), shard);
+            }
+        }
+    }
+
+    int nombreShards() {
+        return nombreShards;
+    }
+
+    int shard(String cle) {
+        if (nombreShards == 1) {
+            return 0;
+        }
+        Map.Entry<Long, Integer> point = anneau.ceilingEntry(hacher(cle));
+        return point != null ? point.getValue() : anneau.firstEntry().getValue();
+    }
+
+    static long hacher(String cle) {
+        long h = 0xcbf29ce484222325L;
+        for (byte octet : cle.getBytes(StandardCharsets.UTF_8)) {
+            h ^= octet & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 30;
+        h *= 0xbf58476d1ce4e5b9L;
+        h ^= h >>> 27;
+        h *= 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
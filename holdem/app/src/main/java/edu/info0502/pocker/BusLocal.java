@@ -0,0 +1,153 @@
+package edu.info0502.pocker;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Bus en mémoire avec la sémantique de MQTT utilisée par le jeu : filtres + et #, messages retenus
+// (renvoyés à chaque abonnement, effacés par un contenu vide), ordre des messages conservé par topic.
+// Le tableau publié est remis tel quel à tous les abonnés, sans copie ni sérialisation.
+// Chaque client reçoit ses messages sur son propre acteur, comme le fil de rappel de Paho.
+final class BusLocal {
+
+    private static final BusLocal PARTAGE = new BusLocal();
+    private static final CompletableFuture<Void> FAIT = CompletableFuture.completedFuture(null);
+
+    // abonnés par filtre, séparés pour que la plupart des publications ne parcourent pas tous les filtres
+    private final Map<String, Set<Client>> exacts = new ConcurrentHashMap<>();
+    private final Map<String, Set<Client>> generiques = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> retenus = new ConcurrentHashMap<>();
+
+    static BusLocal partage() {
+        return PARTAGE;
+    }
+
+    Transport connecter(String nom) {
+        return new Client(nom);
+    }
+
+    private void publier(String topic, byte[] contenu, boolean retenu) {
+        if (retenu) {
+            if (contenu.length == 0) {
+                retenus.remove(topic);
+            } else {
+                retenus.put(topic, contenu);
+            }
+        }
+        Set<Client> directs = exacts.get(topic);
+        Set<Client> destinataires = null;
+        for (Map.Entry<String, Set<Client>> abonnes : generiques.entrySet()) {
+            if (correspond(abonnes.getKey(), topic) && !abonnes.getValue().isEmpty()) {
+                if (destinataires == null) {
+                    destinataires = new HashSet<>();
+                    if (directs != null) {
+                        destinataires.addAll(directs);
+                    }
+                }
+                destinataires.addAll(abonnes.getValue());
+            }
+        }
+        // un client abonné par plusieurs filtres ne reçoit le message qu'une fois
+        for (Client client : destinataires != null ? destinataires : directs != null ? directs : Set.<Client>of()) {
+            client.livrer(topic, contenu);
+        }
+    }
+
+    // filtre MQTT : + remplace un niveau, # (en dernier) tous les niveaux restants, y compris aucun
+    static boolean correspond(String filtre, String topic) {
+        int f = 0;
+        int t = 0;
+        while (true) {
+            int finFiltre = filtre.indexOf('/', f);
+            finFiltre = finFiltre < 0 ? filtre.length() : finFiltre;
+            if (finFiltre - f == 1 && filtre.charAt(f) == '#') {
+                return true;
+            }
+            int finTopic = topic.indexOf('/', t);
+            finTopic = finTopic < 0 ? topic.length() : finTopic;
+            boolean plus = finFiltre - f == 1 && filtre.charAt(f) == '+';
+            if (!plus && (finFiltre - f != finTopic - t || !filtre.regionMatches(f, topic, t, finFiltre - f))) {
+                return false;
+            }
+            boolean dernierFiltre = finFiltre == filtre.length();
+            boolean dernierTopic = finTopic == topic.length();
+            if (dernierFiltre || dernierTopic) {
+                return dernierFiltre && dernierTopic
+                        || dernierTopic && filtre.length() == finFiltre + 2 && filtre.charAt(finFiltre + 1) == '#';
+            }
+            f = finFiltre + 1;
+            t = finTopic + 1;
+        }
+    }
+
+    private static boolean estGenerique(String filtre) {
+        return filtre.indexOf('+') >= 0 || filtre.indexOf('#') >= 0;
+    }
+
+    private final class Client implements Transport {
+        private final Acteur reception;
+        private final Set<String> filtres = ConcurrentHashMap.newKeySet();
+        private volatile Reception destinataire = (topic, contenu) -> { };
+
+        Client(String nom) {
+            this.reception = new Acteur("bus-" + nom);
+        }
+
+        void livrer(String topic, byte[] contenu) {
+            reception.envoyer(() -> destinataire.recevoir(topic, contenu));
+        }
+
+        @Override
+        public void setReception(Reception reception) {
+            this.destinataire = reception;
+        }
+
+        @Override
+        public CompletableFuture<Void> abonner(String... nouveaux) {
+            for (String filtre : nouveaux) {
+                filtres.add(filtre);
+                (estGenerique(filtre) ? generiques : exacts).compute(filtre, (cle, abonnes) -> {
+                    Set<Client> ensemble = abonnes != null ? abonnes : ConcurrentHashMap.newKeySet();
+                    ensemble.add(this);
+                    return ensemble;
+                });
+                retenus.forEach((topic, contenu) -> {
+                    if (correspond(filtre, topic)) {
+                        livrer(topic, contenu);
+                    }
+                });
+            }
+            return FAIT;
+        }
+
+        @Override
+        public CompletableFuture<Void> desabonner(String filtre) {
+            filtres.remove(filtre);
+            // le filtre disparaît avec son dernier abonné (topics des joueurs partis)
+            (estGenerique(filtre) ? generiques : exacts).computeIfPresent(filtre, (cle, abonnes) -> {
+                abonnes.remove(this);
+                return abonnes.isEmpty() ? null : abonnes;
+            });
+            return FAIT;
+        }
+
+        @Override
+        public CompletableFuture<Void> publier(String topic, byte[] contenu, boolean retenu) {
+            if (topic.isEmpty() || estGenerique(topic)) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException("Topic invalide: " + topic));
+            }
+            BusLocal.this.publier(topic, contenu, retenu);
+            return FAIT;
+        }
+
+        @Override
+        public void close() {
+            for (String filtre : filtres) {
+                desabonner(filtre);
+            }
+            reception.arreter();
+        }
+    }
+}
@@ -30,15 +30,38 @@ enum Valeur {
     }
 }
 
-// Une classe pour Carte
+// Une classe pour Carte : les 52 cartes sont créées une seule fois et partagées,
+// on les obtient par Carte.valueOf ou par leur indice (voir getIndice)
 class Carte implements Comparable<Carte>, Serializable{
     private static final long serialVersionUID = 1L;
+    static final int NOMBRE_CARTES = 52;
+    private static final Carte[] CARTES = new Carte[NOMBRE_CARTES];
+
+    static {
+        for (Couleur couleur : Couleur.values()) {
+            for (Valeur valeur : Valeur.values()) {
+                Carte carte = new Carte(couleur, valeur);
+                CARTES[carte.indice] = carte;
+            }
+        }
+    }
+
     private final Couleur couleur;
     private final Valeur valeur;
+    private final int indice;
 
-    public Carte(Couleur couleur, Valeur valeur) {
+    private Carte(Couleur couleur, Valeur valeur) {
         this.couleur = couleur;
         this.valeur = valeur;
+        this.indice = couleur.ordinal() * 13 + valeur.ordinal();
+    }
+
+    public static Carte valueOf(Couleur couleur, Valeur valeur) {
+        return CARTES[couleur.ordinal() * 13 + valeur.ordinal()];
+    }
+
+    public static Carte parIndice(int indice) {
+        return CARTES[indice];
     }
 
     public Couleur getCouleur() {
@@ -49,6 +72,20 @@ class Carte implements Comparable<Carte>, Serializable{
         return valeur;
     }
 
+    // indice de la carte dans un masque de 52 bits (13 bits par couleur)
+    public int getIndice() {
+        return indice;
+    }
+
+    public long getMasque() {
+        return 1L << indice;
+    }
+
+    // une carte désérialisée redevient l'instance partagée
+    private Object readResolve() {
+        return CARTES[indice];
+    }
+
     @Override
     public String toString() {
         return valeur + " de " + couleur;
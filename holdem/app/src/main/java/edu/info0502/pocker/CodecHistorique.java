@@ -0,0 +1,140 @@
+package edu.info0502.pocker;
+
+import java.nio.ByteBuffer;
+
+// Format binaire d'une donne de l'historique :
+//   varint   longueur du corps (0 marque la fin des données d'un segment)
+//   varint   écart en ms avec la donne précédente du segment (zigzag)
+//   octet    nombre de joueurs (bits 0-3), variante (bit 4), nombre de cartes communes (bits 5-7)
+//   varints  identifiants des joueurs
+//   varint   masque des places gagnantes
+//   cartes   6 bits par carte, cartes privées puis tableau, complétées jusqu'à l'octet
+// L'identifiant de la donne n'est pas écrit : c'est son rang dans le journal.
+final class CodecHistorique {
+
+    static final int MAX_JOUEURS = 15;
+    // borne sur la taille d'une donne encodée (10 joueurs Omaha : une soixantaine d'octets)
+    static final int TAILLE_MAX = 128;
+
+    private static final int BITS_CARTE = 6;
+    private static final int MASQUE_CARTE = (1 << BITS_CARTE) - 1;
+
+    private CodecHistorique() {
+    }
+
+    // écrit la donne à la position du tampon ; horodatagePrecedent sert de référence à l'écart
+    static void encoder(HistoriqueDonne donne, long horodatagePrecedent, ByteBuffer tampon) {
+        ByteBuffer corps = ByteBuffer.allocate(TAILLE_MAX);
+        ecrireVarint(corps, zigzag(donne.getHorodatage() - horodatagePrecedent));
+        byte[] tableau = donne.indicesTableau();
+        corps.put((byte) (donne.getNombreJoueurs() | donne.getVariante().ordinal() << 4 | tableau.length << 5));
+        for (int place = 0; place < donne.getNombreJoueurs(); place++) {
+            ecrireVarint(corps, donne.getJoueur(place));
+        }
+        ecrireVarint(corps, donne.getMasqueGagnants());
+
+        long accumulateur = 0;
+        int bits = 0;
+        byte[] privees = donne.indicesPrivees();
+        for (int i = 0; i < privees.length + tableau.length; i++) {
+            int carte = i < privees.length ? privees[i] : tableau[i - privees.length];
+            accumulateur = accumulateur << BITS_CARTE | carte;
+            bits += BITS_CARTE;
+            while (bits >= 8) {
+                bits -= 8;
+                corps.put((byte) (accumulateur >>> bits));
+            }
+        }
+        if (bits > 0) {
+            corps.put((byte) (accumulateur << (8 - bits)));
+        }
+
+        corps.flip();
+        ecrireVarint(tampon, corps.remaining());
+        tampon.put(corps);
+    }
+
+    // lit la donne à la position du tampon, null à la fin des données du segment
+    static HistoriqueDonne decoder(ByteBuffer tampon, long id, long horodatagePrecedent) {
+        if (!tampon.hasRemaining()) {
+            return null;
+        }
+        int longueur = (int) lireVarint(tampon);
+        if (longueur == 0) {
+            return null;
+        }
+        int fin = tampon.position() + longueur;
+        long horodatage = horodatagePrecedent + dezigzag(lireVarint(tampon));
+        int entete = tampon.get() & 0xFF;
+        int nombreJoueurs = entete & 0x0F;
+        Variante variante = Variante.values()[entete >>> 4 & 1];
+        byte[] tableau = new byte[entete >>> 5];
+        int[] joueurs = new int[nombreJoueurs];
+        for (int place = 0; place < nombreJoueurs; place++) {
+            joueurs[place] = (int) lireVarint(tampon);
+        }
+        int gagnants = (int) lireVarint(tampon);
+
+        byte[] privees = new byte[nombreJoueurs * variante.getCartesPrivees()];
+        long accumulateur = 0;
+        int bits = 0;
+        for (int i = 0; i < privees.length + tableau.length; i++) {
+            while (bits < BITS_CARTE) {
+                accumulateur = accumulateur << 8 | (tampon.get() & 0xFF);
+                bits += 8;
+            }
+            bits -= BITS_CARTE;
+            byte carte = (byte) (accumulateur >>> bits & MASQUE_CARTE);
+            if (i < privees.length) {
+                privees[i] = carte;
+            } else {
+                tableau[i - privees.length] = carte;
+            }
+        }
+        tampon.position(fin);
+        return new HistoriqueDonne(id, horodatage, variante, joueurs, privees, tableau, gagnants);
+    }
+
+    // passe une donne sans la décoder et renvoie son horodatage, -1 à la fin des données du segment
+    static long sauter(ByteBuffer tampon, long horodatagePrecedent) {
+        if (!tampon.hasRemaining()) {
+            return -1;
+        }
+        int longueur = (int) lireVarint(tampon);
+        if (longueur == 0) {
+            return -1;
+        }
+        int fin = tampon.position() + longueur;
+        long horodatage = horodatagePrecedent + dezigzag(lireVarint(tampon));
+        tampon.position(fin);
+        return horodatage;
+    }
+
+    static void ecrireVarint(ByteBuffer tampon, long valeur) {
+        while ((valeur & ~0x7FL) != 0) {
+            tampon.put((byte) ((valeur & 0x7F) | 0x80));
+            valeur >>>= 7;
+        }
+        tampon.put((byte) valeur);
+    }
+
+    static long lireVarint(ByteBuffer tampon) {
+        long valeur = 0;
+        for (int decalage = 0; decalage < 64; decalage += 7) {
+            byte octet = tampon.get();
+            valeur |= (long) (octet & 0x7F) << decalage;
+            if (octet >= 0) {
+                return valeur;
+            }
+        }
+        throw new IllegalStateException("Varint trop long");
+    }
+
+    private static long zigzag(long valeur) {
+        return (valeur << 1) ^ (valeur >> 63);
+    }
+
+    private static long dezigzag(long valeur) {
+        return (valeur >>> 1) ^ -(valeur & 1);
+    }
+}
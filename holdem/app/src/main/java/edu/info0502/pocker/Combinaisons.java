@@ -0,0 +1,59 @@
+package edu.info0502.pocker;
+
+// Combinaisons de k indices parmi n dans l'ordre colexicographique : {0,1,2}, {0,1,3}, {0,2,3}, {1,2,3}, {0,1,4}...
+// Le rang d'une combinaison {c0 < c1 < ... } vaut C(c0, 1) + C(c1, 2) + ..., ce qui permet
+// de reprendre l'énumération à n'importe quel rang et donc de la découper en tranches.
+final class Combinaisons {
+
+    static final int MAX_N = 52;
+    static final int MAX_K = 7;
+    private static final long[][] BINOMIAUX = new long[MAX_N + 1][MAX_K + 1];
+
+    static {
+        for (int n = 0; n <= MAX_N; n++) {
+            BINOMIAUX[n][0] = 1;
+            for (int k = 1; k <= Math.min(n, MAX_K); k++) {
+                BINOMIAUX[n][k] = BINOMIAUX[n - 1][k - 1] + (k <= n - 1 ? BINOMIAUX[n - 1][k] : 0);
+            }
+        }
+    }
+
+    private Combinaisons() {
+    }
+
+    // C(n, k), nul si k < 0 ou k > n ; au-delà de MAX_N ou MAX_K, la table ne suffit plus
+    static long binomial(int n, int k) {
+        if (k < 0 || k > n) {
+            return 0;
+        }
+        if (n > MAX_N || k > MAX_K) {
+            throw new IllegalArgumentException("C(" + n + ", " + k + ") hors de la table des binomiaux");
+        }
+        return BINOMIAUX[n][k];
+    }
+
+    // écrit dans indices[0..k) la combinaison de rang donné
+    static void dechiffrer(long rang, int k, int[] indices) {
+        for (int i = k; i > 0; i--) {
+            int c = i - 1;
+            while (binomial(c + 1, i) <= rang) {
+                c++;
+            }
+            indices[i - 1] = c;
+            rang -= binomial(c, i);
+        }
+    }
+
+    // passe à la combinaison suivante dans l'ordre colexicographique
+    static void suivante(int[] indices, int k) {
+        if (k == 0) {
+            return;
+        }
+        int i = 0;
+        while (i < k - 1 && indices[i] + 1 == indices[i + 1]) {
+            indices[i] = i;
+            i++;
+        }
+        indices[i]++;
+    }
+}
@@ -0,0 +1,106 @@
+package edu.info0502.pocker;
+
+import java.nio.charset.StandardCharsets;
+
+// les commandes des clients ; l'ordre donne aussi le code de la commande dans ProtocoleBinaire
+enum TypeCommande {
+    HELLO, CREATE_TABLE, LIST_TABLES, JOIN_TABLE, START_GAME, CLOSE_TABLE, EQUITY;
+
+    private static final TypeCommande[] TYPES = values();
+
+    // nom en ASCII, comparé directement aux octets reçus
+    private final byte[] octets = name().getBytes(StandardCharsets.US_ASCII);
+
+    static TypeCommande parCode(int code) {
+        return code >= 0 && code < TYPES.length ? TYPES[code] : null;
+    }
+
+    // type dont le nom occupe octets[debut, fin), null s'il n'y en a pas
+    static TypeCommande parNom(byte[] octets, int debut, int fin) {
+        for (TypeCommande type : TYPES) {
+            if (type.octets.length == fin - debut && egaux(type.octets, octets, debut)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    private static boolean egaux(byte[] nom, byte[] octets, int debut) {
+        for (int i = 0; i < nom.length; i++) {
+            if (nom[i] != octets[debut + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
+
+// Commande reçue par le serveur, en JSON (DecodeurCommande) ou en binaire (ProtocoleBinaire) :
+// seuls les champs utilisés par les commandes sont gardés, les autres valent null.
+final class Commande {
+    private final TypeCommande type;
+    private final String player;
+    private final String tableId;
+    private final String ranges;
+    private final String board;
+    private final String budgetMs;
+    // filtre et page de LIST_TABLES
+    private final RequeteTables requete;
+
+    Commande(TypeCommande type, String player, String tableId, String ranges, String board, String budgetMs,
+            RequeteTables requete) {
+        this.type = type;
+        this.player = player;
+        this.tableId = tableId;
+        this.ranges = ranges;
+        this.board = board;
+        this.budgetMs = budgetMs;
+        this.requete = requete;
+    }
+
+    public TypeCommande getType() {
+        return type;
+    }
+
+    public String getPlayer() {
+        return player;
+    }
+
+    public String getTableId() {
+        return tableId;
+    }
+
+    public String getRanges() {
+        return ranges;
+    }
+
+    public String getBoard() {
+        return board;
+    }
+
+    public String getBudgetMs() {
+        return budgetMs;
+    }
+
+    public RequeteTables getRequete() {
+        return requete;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texte = new StringBuilder().append(type).append(" {player=").append(player);
+        if (tableId != null) {
+            texte.append(", tableId=").append(tableId);
+        }
+        if (ranges != null) {
+            texte.append(", ranges=").append(ranges);
+        }
+        if (board != null) {
+            texte.append(", board=").append(board);
+        }
+        if (budgetMs != null) {
+            texte.append(", budgetMs=").append(budgetMs);
+        }
+        return texte.append('}').toString();
+    }
+}
@@ -0,0 +1,333 @@
+package edu.info0502.pocker;
+
+import java.nio.charset.StandardCharsets;
+
+// Décodeur JSON écrit à la main pour les commandes {"type": "...", "data": {"player": "...", ...}},
+// lu directement dans les octets reçus : le type est reconnu sans créer de chaîne, les clés sont
+// comparées octet par octet et seules les valeurs des champs connus deviennent des String.
+// Les champs inconnus (objets et tableaux compris) sont sautés ; un nombre ou un booléen est gardé
+// tel qu'écrit, comme Gson le faisait pour une Map<String, String>.
+final class DecodeurCommande {
+
+    private static final byte[] TYPE = octets("type");
+    private static final byte[] DATA = octets("data");
+    private static final byte[] PLAYER = octets("player");
+    private static final byte[] TABLE_ID = octets("tableId");
+    private static final byte[] RANGES = octets("ranges");
+    private static final byte[] BOARD = octets("board");
+    private static final byte[] BUDGET_MS = octets("budgetMs");
+    private static final byte[] STATUS = octets("status");
+    private static final byte[] MIN_SEATS = octets("minSeats");
+    private static final byte[] ADMIN = octets("admin");
+    private static final byte[] LIMIT = octets("limit");
+    private static final byte[] CURSOR = octets("cursor");
+
+    private final byte[] json;
+    private int position;
+    // dernière chaîne lue : [debut, fin) dans json si elle est sans échappement, sinon dans echappee
+    private int debut;
+    private int fin;
+    private String echappee;
+
+    private TypeCommande type;
+    private String player;
+    private String tableId;
+    private String ranges;
+    private String board;
+    private String budgetMs;
+    private String status;
+    private String minSeats;
+    private String admin;
+    private String limit;
+    private String cursor;
+
+    private DecodeurCommande(byte[] json) {
+        this.json = json;
+    }
+
+    // IllegalArgumentException si le message n'est pas une commande JSON valide
+    static Commande decoder(byte[] json) {
+        DecodeurCommande decodeur = new DecodeurCommande(json);
+        decodeur.commande();
+        RequeteTables requete = decodeur.type == TypeCommande.LIST_TABLES
+                ? RequeteTables.depuis(decodeur.status, decodeur.minSeats, decodeur.admin, decodeur.limit,
+                        decodeur.cursor)
+                : null;
+        return new Commande(decodeur.type, decodeur.player, decodeur.tableId, decodeur.ranges, decodeur.board,
+                decodeur.budgetMs, requete);
+    }
+
+    private void commande() {
+        attendre('{');
+        if (!vide('}')) {
+            do {
+                cle();
+                if (cleEst(TYPE)) {
+                    if (suivant() != '"') {
+                        throw erreur("type attendu");
+                    }
+                    chaine();
+                    if (echappee != null) {
+                        byte[] nom = octets(echappee);
+                        type = TypeCommande.parNom(nom, 0, nom.length);
+                    } else {
+                        type = TypeCommande.parNom(json, debut, fin);
+                    }
+                    if (type == null) {
+                        throw new IllegalArgumentException("Commande non reconnue: " + texte());
+                    }
+                } else if (cleEst(DATA)) {
+                    donnees();
+                } else {
+                    sauterValeur();
+                }
+            } while (continuer('}'));
+        }
+        if (sauterEspaces() < json.length) {
+            throw erreur("fin attendue");
+        }
+        if (type == null) {
+            throw erreur("type manquant");
+        }
+    }
+
+    private void donnees() {
+        if (suivant() == 'n') {
+            litteral();
+            return;
+        }
+        attendre('{');
+        if (vide('}')) {
+            return;
+        }
+        do {
+            cle();
+            if (cleEst(PLAYER)) {
+                player = valeur();
+            } else if (cleEst(TABLE_ID)) {
+                tableId = valeur();
+            } else if (cleEst(RANGES)) {
+                ranges = valeur();
+            } else if (cleEst(BOARD)) {
+                board = valeur();
+            } else if (cleEst(BUDGET_MS)) {
+                budgetMs = valeur();
+            } else if (cleEst(STATUS)) {
+                status = valeur();
+            } else if (cleEst(MIN_SEATS)) {
+                minSeats = valeur();
+            } else if (cleEst(ADMIN)) {
+                admin = valeur();
+            } else if (cleEst(LIMIT)) {
+                limit = valeur();
+            } else if (cleEst(CURSOR)) {
+                cursor = valeur();
+            } else {
+                sauterValeur();
+            }
+        } while (continuer('}'));
+    }
+
+    // lit une clé et le ':' qui la suit
+    private void cle() {
+        if (suivant() != '"') {
+            throw erreur("clé attendue");
+        }
+        chaine();
+        attendre(':');
+    }
+
+    private boolean cleEst(byte[] nom) {
+        if (echappee != null) {
+            return echappee.equals(new String(nom, StandardCharsets.US_ASCII));
+        }
+        if (fin - debut != nom.length) {
+            return false;
+        }
+        for (int i = 0; i < nom.length; i++) {
+            if (json[debut + i] != nom[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // valeur d'un champ connu : chaîne, nombre ou littéral, null pour null
+    private String valeur() {
+        int c = suivant();
+        if (c == '"') {
+            chaine();
+            return texte();
+        }
+        if (c == '{' || c == '[') {
+            throw erreur("valeur simple attendue");
+        }
+        int depart = position;
+        litteral();
+        if (json[depart] == 'n') {
+            return null;
+        }
+        return new String(json, depart, position - depart, StandardCharsets.UTF_8);
+    }
+
+    private String texte() {
+        return echappee != null ? echappee : new String(json, debut, fin - debut, StandardCharsets.UTF_8);
+    }
+
+    private void sauterValeur() {
+        int c = suivant();
+        if (c == '"') {
+            chaine();
+        } else if (c == '{' || c == '[') {
+            int fermant = c == '{' ? '}' : ']';
+            position++;
+            if (vide(fermant)) {
+                return;
+            }
+            do {
+                if (fermant == '}') {
+                    cle();
+                }
+                sauterValeur();
+            } while (continuer(fermant));
+        } else {
+            litteral();
+        }
+    }
+
+    // nombre, true, false ou null, position avancée jusqu'au prochain séparateur
+    private void litteral() {
+        int depart = position;
+        while (position < json.length) {
+            byte b = json[position];
+            if (b == ',' || b == '}' || b == ']' || b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+                break;
+            }
+            position++;
+        }
+        if (position == depart) {
+            throw erreur("valeur attendue");
+        }
+    }
+
+    // chaîne à partir du guillemet courant ; n'alloue que si elle contient un échappement
+    private void chaine() {
+        position++;
+        debut = position;
+        echappee = null;
+        while (position < json.length) {
+            byte b = json[position];
+            if (b == '"') {
+                fin = position++;
+                return;
+            }
+            if (b == '\\') {
+                echappee = chaineEchappee();
+                return;
+            }
+            position++;
+        }
+        throw erreur("chaîne non terminée");
+    }
+
+    private String chaineEchappee() {
+        StringBuilder texte = new StringBuilder(new String(json, debut, position - debut, StandardCharsets.UTF_8));
+        int morceau = position;
+        while (position < json.length) {
+            byte b = json[position];
+            if (b == '"') {
+                texte.append(new String(json, morceau, position - morceau, StandardCharsets.UTF_8));
+                position++;
+                return texte.toString();
+            }
+            if (b != '\\') {
+                position++;
+                continue;
+            }
+            texte.append(new String(json, morceau, position - morceau, StandardCharsets.UTF_8));
+            if (position + 1 >= json.length) {
+                break;
+            }
+            byte echappement = json[position + 1];
+            position += 2;
+            switch (echappement) {
+                case '"': texte.append('"'); break;
+                case '\\': texte.append('\\'); break;
+                case '/': texte.append('/'); break;
+                case 'b': texte.append('\b'); break;
+                case 'f': texte.append('\f'); break;
+                case 'n': texte.append('\n'); break;
+                case 'r': texte.append('\r'); break;
+                case 't': texte.append('\t'); break;
+                case 'u':
+                    if (position + 4 > json.length) {
+                        throw erreur("échappement incomplet");
+                    }
+                    texte.append((char) Integer.parseInt(new String(json, position, 4, StandardCharsets.US_ASCII), 16));
+                    position += 4;
+                    break;
+                default:
+                    throw erreur("échappement invalide");
+            }
+            morceau = position;
+        }
+        throw erreur("chaîne non terminée");
+    }
+
+    // premier octet après les espaces, sans l'avancer
+    private int suivant() {
+        if (sauterEspaces() == json.length) {
+            throw erreur("fin inattendue");
+        }
+        return json[position];
+    }
+
+    private int sauterEspaces() {
+        while (position < json.length) {
+            byte b = json[position];
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                break;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    private void attendre(int c) {
+        if (suivant() != c) {
+            throw erreur("'" + (char) c + "' attendu");
+        }
+        position++;
+    }
+
+    // juste après l'ouvrant : vrai si l'objet ou le tableau est vide
+    private boolean vide(int fermant) {
+        if (suivant() == fermant) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    // après un élément : vrai pour une virgule, faux pour le caractère fermant
+    private boolean continuer(int fermant) {
+        int c = suivant();
+        position++;
+        if (c == ',') {
+            return true;
+        }
+        if (c == fermant) {
+            return false;
+        }
+        position--;
+        throw erreur("',' ou '" + (char) fermant + "' attendu");
+    }
+
+    private IllegalArgumentException erreur(String message) {
+        return new IllegalArgumentException("JSON invalide (" + message + ") à la position " + position);
+    }
+
+    private static byte[] octets(String texte) {
+        return texte.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,88 @@
+package edu.info0502.pocker;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Équités exactes : tous les tableaux possibles sont parcourus. Les complétions du tableau sont
+// numérotées dans l'ordre colexicographique (voir Combinaisons), chaque tâche traite une tranche
+// de rangs [debut, fin) sans construire de liste.
+class EnumerateurEquite {
+
+    // nombre de tableaux en dessous duquel une tranche n'est plus découpée
+    private static final long TAILLE_TRANCHE = 16384;
+
+    private final ForkJoinPool pool;
+
+    EnumerateurEquite() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    EnumerateurEquite(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // les cartes restantes sont toutes les cartes inconnues
+    ResultatEquite calculer(List<List<Carte>> mainsPrivees, List<Carte> tableau) {
+        return calculer(new EquiteMonteCarlo.Donne(mainsPrivees, tableau));
+    }
+
+    // les cartes restantes sont celles du talon (masque de Talon.masqueCartes)
+    ResultatEquite calculer(List<List<Carte>> mainsPrivees, List<Carte> tableau, long masqueTalon) {
+        return calculer(new EquiteMonteCarlo.Donne(mainsPrivees, tableau, masqueTalon));
+    }
+
+    private ResultatEquite calculer(EquiteMonteCarlo.Donne donne) {
+        long total = Combinaisons.binomial(donne.paquet.length, donne.manquantes);
+        return pool.invoke(new Tranche(donne, 0, total));
+    }
+
+    private static final class Tranche extends RecursiveTask<ResultatEquite> {
+        private static final long serialVersionUID = 1L;
+        // une tranche n'est jamais sérialisée : RecursiveTask n'est Serializable que par héritage
+        private final transient EquiteMonteCarlo.Donne donne;
+        private final long debut;
+        private final long fin;
+
+        Tranche(EquiteMonteCarlo.Donne donne, long debut, long fin) {
+            this.donne = donne;
+            this.debut = debut;
+            this.fin = fin;
+        }
+
+        @Override
+        protected ResultatEquite compute() {
+            if (fin - debut > TAILLE_TRANCHE) {
+                long milieu = (debut + fin) >>> 1;
+                Tranche gauche = new Tranche(donne, debut, milieu);
+                gauche.fork();
+                ResultatEquite resultat = new Tranche(donne, milieu, fin).compute();
+                return resultat.fusionner(gauche.join());
+            }
+            return enumerer();
+        }
+
+        private ResultatEquite enumerer() {
+            long[] mains = donne.mains;
+            int[] paquet = donne.paquet;
+            int manquantes = donne.manquantes;
+            int[] indices = new int[manquantes];
+            int[] rangs = new int[mains.length];
+            ResultatEquite resultat = new ResultatEquite(mains.length);
+
+            Combinaisons.dechiffrer(debut, manquantes, indices);
+            for (long rang = debut; rang < fin; rang++) {
+                long tableau = donne.tableau;
+                for (int i = 0; i < manquantes; i++) {
+                    tableau |= 1L << paquet[indices[i]];
+                }
+                for (int i = 0; i < mains.length; i++) {
+                    rangs[i] = EvaluateurMain.evaluer(mains[i] | tableau);
+                }
+                resultat.enregistrer(rangs);
+                Combinaisons.suivante(indices, manquantes);
+            }
+            return resultat;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package edu.info0502.pocker;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// File d'envoi des messages du serveur, sans attente fixe entre deux publications.
+//  - envoyer() ne bloque jamais : le message est rangé dans la file de son topic ;
+//  - un seul message par topic est en vol à la fois, ce qui garde l'ordre par table et par joueur ;
+//  - au plus FENETRE publications sont en vol pour tout le client (Semaphore), les topics en attente
+//    de place repartent dans l'ordre où ils se sont présentés ;
+//  - les messages d'un même topic arrivés pendant l'attente (ATTENTE) ou pendant l'envoi précédent
+//    partent ensemble, séparés par SEPARATEUR (les messages peuvent eux-mêmes contenir des retours à la ligne ;
+//    les trames binaires, voir ProtocoleBinaire, se délimitent elles-mêmes).
+// La file d'un topic est retirée dès qu'elle est vide et sans envoi en vol : les topics des joueurs
+// et des tables disparus ne restent pas en mémoire.
+// Toute la logique tourne sur un seul fil, les accusés du transport ne font que lui rendre la main.
+// Fonctionne avec tout Transport ; avec BusLocal les publications aboutissent immédiatement.
+class EnvoiMqtt {
+
+    static final int FENETRE = 64;
+    static final Duration ATTENTE = Duration.ofMillis(5);
+    // taille maximale d'un lot, en octets
+    static final int TAILLE_LOT = 32 * 1024;
+    private static final long DELAI_NOUVEL_ESSAI_MS = 1000;
+    // séparateur d'enregistrements ASCII, découpé par Subscriber
+    static final byte SEPARATEUR = 0x1E;
+
+    private final Transport transport;
+    private final long attenteNanos;
+    private final Semaphore fenetre;
+    // durée de chaque publication, de l'appel au transport à son accusé, et publications échouées
+    private final Metriques.Mesure mesure;
+    private final Map<String, FileTopic> files = new ConcurrentHashMap<>();
+    // topics prêts à partir mais sans place dans la fenêtre (manipulé par le fil d'envoi uniquement)
+    private final ArrayDeque<FileTopic> enAttenteDeFenetre = new ArrayDeque<>();
+    private final ScheduledExecutorService fil = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "envoi-mqtt");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    EnvoiMqtt(Transport transport) {
+        this(transport, new Metriques.Mesure());
+    }
+
+    EnvoiMqtt(Transport transport, Metriques.Mesure mesure) {
+        this(transport, FENETRE, ATTENTE, mesure);
+    }
+
+    EnvoiMqtt(Transport transport, int fenetre, Duration attente) {
+        this(transport, fenetre, attente, new Metriques.Mesure());
+    }
+
+    EnvoiMqtt(Transport transport, int fenetre, Duration attente, Metriques.Mesure mesure) {
+        this.transport = transport;
+        this.fenetre = new Semaphore(fenetre);
+        this.attenteNanos = attente.toNanos();
+        this.mesure = mesure;
+    }
+
+    void envoyer(String topic, String message) {
+        ajouter(topic, message.getBytes(StandardCharsets.UTF_8), false);
+    }
+
+    void envoyer(String topic, byte[] message) {
+        ajouter(topic, message, false);
+    }
+
+    // message retenu par le broker : seul le dernier compte, les précédents encore en file sont remplacés
+    void envoyerRetenu(String topic, String message) {
+        ajouter(topic, message.getBytes(StandardCharsets.UTF_8), true);
+    }
+
+    private void ajouter(String topic, byte[] message, boolean retenu) {
+        FileTopic file;
+        boolean programmer;
+        while (true) {
+            file = files.computeIfAbsent(topic, FileTopic::new);
+            synchronized (file) {
+                // retirée entre-temps par le fil d'envoi : une nouvelle file prend sa place
+                if (file.retiree) {
+                    continue;
+                }
+                if (retenu) {
+                    file.messages.clear();
+                }
+                file.retenu = retenu;
+                file.messages.add(message);
+                programmer = !file.programme && !file.enVol;
+                file.programme |= programmer;
+                break;
+            }
+        }
+        if (programmer) {
+            FileTopic programmee = file;
+            try {
+                fil.schedule(() -> publier(programmee), attenteNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // après fermer() : le message est abandonné
+            }
+        }
+    }
+
+    // nombre de messages pas encore publiés, tous topics confondus
+    int enAttente() {
+        int total = 0;
+        for (FileTopic file : files.values()) {
+            synchronized (file) {
+                total += file.messages.size();
+            }
+        }
+        return total;
+    }
+
+    void fermer() {
+        fil.shutdown();
+    }
+
+    // sur le fil d'envoi
+    private void publier(FileTopic file) {
+        byte[] lot;
+        boolean retenu;
+        synchronized (file) {
+            if (file.messages.isEmpty()) {
+                file.programme = false;
+                return;
+            }
+            if (!fenetre.tryAcquire()) {
+                enAttenteDeFenetre.add(file);
+                return;
+            }
+            retenu = file.retenu;
+            lot = retenu ? file.messages.poll() : prendreLot(file);
+            file.programme = false;
+            file.enVol = true;
+        }
+
+        long debut = System.nanoTime();
+        transport.publier(file.topic, lot, retenu).whenComplete((ignore, erreur) -> fil.execute(() -> {
+            if (erreur == null) {
+                mesure.enregistrerDepuis(debut);
+                terminer(file);
+            } else if (erreur instanceof IllegalArgumentException) {
+                mesure.echouer();
+                // topic invalide : inutile de réessayer
+                System.err.println("Message abandonné pour le topic " + file.topic + ": " + erreur.getMessage());
+                terminer(file);
+            } else {
+                mesure.echouer();
+                echouer(file, lot, erreur);
+            }
+        }));
+    }
+
+    private byte[] prendreLot(FileTopic file) {
+        byte[] premier = file.messages.poll();
+        if (file.messages.isEmpty()) {
+            return premier;
+        }
+        ByteArrayOutputStream lot = new ByteArrayOutputStream();
+        lot.writeBytes(premier);
+        while (!file.messages.isEmpty() && lot.size() + file.messages.peek().length < TAILLE_LOT) {
+            lot.write(SEPARATEUR);
+            lot.writeBytes(file.messages.poll());
+        }
+        return lot.toByteArray();
+    }
+
+    private void terminer(FileTopic file) {
+        fenetre.release();
+        boolean reste;
+        synchronized (file) {
+            file.enVol = false;
+            reste = !file.messages.isEmpty();
+            file.programme = reste;
+            if (!reste) {
+                file.retiree = true;
+                files.remove(file.topic, file);
+            }
+        }
+        // les messages arrivés pendant l'envoi ont déjà attendu : ils partent sans délai
+        if (reste) {
+            publier(file);
+        }
+        while (!enAttenteDeFenetre.isEmpty() && fenetre.availablePermits() > 0) {
+            publier(enAttenteDeFenetre.poll());
+        }
+    }
+
+    // le lot est remis en tête de sa file et repart plus tard, ce qui garde l'ordre du topic
+    private void echouer(FileTopic file, byte[] lot, Throwable erreur) {
+        System.err.println("Erreur lors de l'envoi du message au topic " + file.topic + ": " + erreur.getMessage());
+        fenetre.release();
+        synchronized (file) {
+            // un message retenu plus récent remplace celui qui a échoué
+            if (!file.retenu || file.messages.isEmpty()) {
+                file.messages.addFirst(lot);
+            }
+            file.enVol = false;
+            file.programme = true;
+        }
+        fil.schedule(() -> publier(file), DELAI_NOUVEL_ESSAI_MS, TimeUnit.MILLISECONDS);
+        while (!enAttenteDeFenetre.isEmpty() && fenetre.availablePermits() > 0) {
+            publier(enAttenteDeFenetre.poll());
+        }
+    }
+
+    private static final class FileTopic {
+        private final String topic;
+        private final ArrayDeque<byte[]> messages = new ArrayDeque<>();
+        // une publication est programmée (attente ou place dans la fenêtre)
+        private boolean programme;
+        private boolean enVol;
+        // dernier message reçu marqué comme retenu (voir envoyerRetenu)
+        private boolean retenu;
+        // plus dans files : ajouter() doit en créer une nouvelle
+        private boolean retiree;
+
+        FileTopic(String topic) {
+            this.topic = topic;
+        }
+    }
+}
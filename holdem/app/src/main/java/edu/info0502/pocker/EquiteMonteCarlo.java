@@ -0,0 +1,183 @@
+package edu.info0502.pocker;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+// Équités par simulation de Monte-Carlo : les cartes communes manquantes sont tirées au hasard
+// parmi les cartes encore inconnues. Découpage en lots et budget : voir SimulationParLots.
+// Les mains de BLOC essais consécutifs sont évaluées ensemble (voir EvaluateurLot).
+class EquiteMonteCarlo {
+
+    // essais dont les mains sont évaluées en un seul appel
+    private static final int BLOC = 64;
+
+    private final SimulationParLots simulation;
+
+    EquiteMonteCarlo() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    EquiteMonteCarlo(ForkJoinPool pool) {
+        this.simulation = new SimulationParLots(pool);
+    }
+
+    // budget en nombre d'essais
+    ResultatEquite calculer(List<List<Carte>> mainsPrivees, List<Carte> tableau, long essais, long graine) {
+        return calculer(new Donne(mainsPrivees, tableau), essais, graine);
+    }
+
+    // une main contre des adversaires dont les cartes privées sont tirées à chaque essai ;
+    // le résultat contient la main en position 0, puis les adversaires
+    ResultatEquite calculerContreAleatoires(List<Carte> main, int adversaires, long essais, long graine) {
+        return calculer(new Donne(List.of(main), List.of(), Donne.TOUTES_LES_CARTES, adversaires), essais, graine);
+    }
+
+    private ResultatEquite calculer(Donne donne, long essais, long graine) {
+        if (donne.estComplete()) {
+            essais = 1;
+        }
+        return simulation.simuler(donne.nombreJoueurs(), () -> new Essais(donne), essais, graine);
+    }
+
+    ResultatEquite calculer(List<List<Carte>> mainsPrivees, List<Carte> tableau, long essais) {
+        return calculer(mainsPrivees, tableau, essais, new SplittableRandom().nextLong());
+    }
+
+    // budget en temps : un lot par fil du pool, chacun tourne jusqu'à l'échéance
+    ResultatEquite calculerPendant(List<List<Carte>> mainsPrivees, List<Carte> tableau, Duration budget) {
+        Donne donne = new Donne(mainsPrivees, tableau);
+        if (donne.estComplete()) {
+            return calculer(mainsPrivees, tableau, 1);
+        }
+        return simulation.simulerPendant(donne.nombreJoueurs(), () -> new Essais(donne), budget);
+    }
+
+    // cartes connues d'une donne, sous forme de masques
+    static final class Donne {
+        static final long TOUTES_LES_CARTES = (1L << 52) - 1;
+
+        final long[] mains;
+        final long tableau;
+        final int manquantes;
+        // joueurs dont les deux cartes privées sont tirées avec le tableau
+        final int adversaires;
+        final int[] paquet;
+
+        Donne(List<List<Carte>> mainsPrivees, List<Carte> cartesTableau) {
+            this(mainsPrivees, cartesTableau, TOUTES_LES_CARTES);
+        }
+
+        // seules les cartes de masqueDisponibles peuvent compléter le tableau
+        Donne(List<List<Carte>> mainsPrivees, List<Carte> cartesTableau, long masqueDisponibles) {
+            this(mainsPrivees, cartesTableau, masqueDisponibles, 0);
+        }
+
+        Donne(List<List<Carte>> mainsPrivees, List<Carte> cartesTableau, long masqueDisponibles, int adversaires) {
+            if (cartesTableau.size() > 5) {
+                throw new IllegalArgumentException("Trop de cartes communes");
+            }
+            long connues = 0L;
+            mains = new long[mainsPrivees.size()];
+            for (int i = 0; i < mains.length; i++) {
+                for (Carte carte : mainsPrivees.get(i)) {
+                    connues = ajouter(connues, carte);
+                    mains[i] |= carte.getMasque();
+                }
+            }
+            long masqueTableau = 0L;
+            for (Carte carte : cartesTableau) {
+                connues = ajouter(connues, carte);
+                masqueTableau |= carte.getMasque();
+            }
+            tableau = masqueTableau;
+            manquantes = 5 - cartesTableau.size();
+            this.adversaires = adversaires;
+
+            long restantes = masqueDisponibles & ~connues;
+            paquet = new int[Long.bitCount(restantes)];
+            for (int n = 0; restantes != 0; n++) {
+                paquet[n] = Long.numberOfTrailingZeros(restantes);
+                restantes &= restantes - 1;
+            }
+            if (paquet.length < cartesTirees()) {
+                throw new IllegalArgumentException("Pas assez de cartes pour compléter le tableau");
+            }
+        }
+
+        int cartesTirees() {
+            return manquantes + 2 * adversaires;
+        }
+
+        int nombreJoueurs() {
+            return mains.length + adversaires;
+        }
+
+        boolean estComplete() {
+            return cartesTirees() == 0;
+        }
+
+        private static long ajouter(long connues, Carte carte) {
+            if ((connues & carte.getMasque()) != 0) {
+                throw new IllegalArgumentException("Carte en double: " + carte);
+            }
+            return connues | carte.getMasque();
+        }
+    }
+
+    // tampons d'un lot : sa copie du paquet et les mains d'un bloc
+    private static final class Essais implements SimulationParLots.Echantillonneur {
+        private final Donne donne;
+        private final int[] paquet;
+        private final int joueurs;
+        // masques[e * joueurs + i] : main du joueur i à l'essai e du bloc
+        private final long[] masques;
+        private final int[] rangs;
+
+        Essais(Donne donne) {
+            this.donne = donne;
+            this.paquet = donne.paquet.clone();
+            this.joueurs = donne.nombreJoueurs();
+            this.masques = new long[BLOC * joueurs];
+            this.rangs = new int[masques.length];
+        }
+
+        @Override
+        public void simuler(int essais, SplittableRandom aleatoire, ResultatEquite resultat) {
+            long[] mains = donne.mains;
+            int manquantes = donne.manquantes;
+            int adversaires = donne.adversaires;
+            int tirees = donne.cartesTirees();
+            int taillePaquet = paquet.length;
+
+            for (int essai = 0; essai < essais; ) {
+                int bloc = Math.min(BLOC, essais - essai);
+                for (int e = 0, m = 0; e < bloc; e++) {
+                    // tirage partiel de Fisher-Yates : les cartes manquantes puis celles des adversaires
+                    for (int k = 0; k < tirees; k++) {
+                        int j = k + aleatoire.nextInt(taillePaquet - k);
+                        int carte = paquet[j];
+                        paquet[j] = paquet[k];
+                        paquet[k] = carte;
+                    }
+                    long tableau = donne.tableau;
+                    for (int k = 0; k < manquantes; k++) {
+                        tableau |= 1L << paquet[k];
+                    }
+                    for (int i = 0; i < mains.length; i++) {
+                        masques[m++] = mains[i] | tableau;
+                    }
+                    for (int a = 0, k = manquantes; a < adversaires; a++, k += 2) {
+                        masques[m++] = (1L << paquet[k]) | (1L << paquet[k + 1]) | tableau;
+                    }
+                }
+                EvaluateurLot.evaluer(masques, rangs, bloc * joueurs);
+                for (int e = 0; e < bloc; e++) {
+                    resultat.enregistrer(rangs, e * joueurs);
+                }
+                essai += bloc;
+            }
+        }
+    }
+}
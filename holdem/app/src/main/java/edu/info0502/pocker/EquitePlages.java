@@ -0,0 +1,152 @@
+package edu.info0502.pocker;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+// Équités d'une plage contre une ou plusieurs autres (voir PlageMains) par Monte-Carlo.
+// À chaque essai, une combinaison est tirée dans chaque plage selon son poids ; un tirage qui
+// réutilise une carte déjà prise (test sur les masques) est recommencé, ce qui donne la loi
+// conditionnelle correcte. Le tableau est ensuite complété parmi les cartes restantes.
+// Découpage en lots et budget : voir SimulationParLots, comme pour EquiteMonteCarlo.
+class EquitePlages {
+
+    // tirages refusés d'affilée au-delà desquels les plages sont jugées incompatibles
+    private static final int REJETS_MAX = 10_000;
+
+    private final SimulationParLots simulation;
+
+    EquitePlages() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    EquitePlages(ForkJoinPool pool) {
+        this.simulation = new SimulationParLots(pool);
+    }
+
+    ResultatEquite calculer(List<PlageMains> plages, List<Carte> tableau, long essais, long graine) {
+        Tirage tirage = new Tirage(plages, tableau);
+        return simulation.simuler(tirage.joueurs(), () -> new Essais(tirage), essais, graine);
+    }
+
+    // budget en temps : un lot par fil du pool, chacun tourne jusqu'à l'échéance
+    ResultatEquite calculerPendant(List<PlageMains> plages, List<Carte> tableau, Duration budget) {
+        Tirage tirage = new Tirage(plages, tableau);
+        return simulation.simulerPendant(tirage.joueurs(), () -> new Essais(tirage), budget);
+    }
+
+    // plages débarrassées des cartes du tableau, avec les poids cumulés pour le tirage
+    private static final class Tirage {
+        final long tableau;
+        final int manquantes;
+        final long[][] combinaisons;
+        final double[][] cumuls;
+
+        Tirage(List<PlageMains> plages, List<Carte> cartesTableau) {
+            if (plages.size() < 2) {
+                throw new IllegalArgumentException("Il faut au moins deux plages");
+            }
+            if (cartesTableau.size() > 5) {
+                throw new IllegalArgumentException("Trop de cartes communes");
+            }
+            long masqueTableau = 0L;
+            for (Carte carte : cartesTableau) {
+                if ((masqueTableau & carte.getMasque()) != 0) {
+                    throw new IllegalArgumentException("Carte en double: " + carte);
+                }
+                masqueTableau |= carte.getMasque();
+            }
+            tableau = masqueTableau;
+            manquantes = 5 - cartesTableau.size();
+
+            combinaisons = new long[plages.size()][];
+            cumuls = new double[plages.size()][];
+            for (int j = 0; j < plages.size(); j++) {
+                PlageMains plage = plages.get(j).sans(tableau);
+                combinaisons[j] = new long[plage.taille()];
+                cumuls[j] = new double[plage.taille()];
+                double total = 0;
+                for (int i = 0; i < plage.taille(); i++) {
+                    combinaisons[j][i] = plage.combinaison(i);
+                    total += plage.poids(i);
+                    cumuls[j][i] = total;
+                }
+                if (total == 0) {
+                    throw new IllegalArgumentException("Plage vide avec ce tableau: " + plages.get(j));
+                }
+            }
+        }
+
+        int joueurs() {
+            return combinaisons.length;
+        }
+
+        // indice de la première combinaison dont le poids cumulé dépasse le tirage
+        long tirer(int joueur, SplittableRandom aleatoire) {
+            double[] cumul = cumuls[joueur];
+            double cible = aleatoire.nextDouble() * cumul[cumul.length - 1];
+            int bas = 0;
+            int haut = cumul.length - 1;
+            while (bas < haut) {
+                int milieu = (bas + haut) >>> 1;
+                if (cumul[milieu] > cible) {
+                    haut = milieu;
+                } else {
+                    bas = milieu + 1;
+                }
+            }
+            return combinaisons[joueur][bas];
+        }
+    }
+
+    // tampons d'un lot
+    private static final class Essais implements SimulationParLots.Echantillonneur {
+        private final Tirage tirage;
+        private final long[] mains;
+        private final int[] rangs;
+
+        Essais(Tirage tirage) {
+            this.tirage = tirage;
+            this.mains = new long[tirage.joueurs()];
+            this.rangs = new int[tirage.joueurs()];
+        }
+
+        @Override
+        public void simuler(int essais, SplittableRandom aleatoire, ResultatEquite resultat) {
+            for (int essai = 0; essai < essais; essai++) {
+                long prises = tirerMains(mains, aleatoire);
+                long tableau = tirage.tableau;
+                for (int k = 0; k < tirage.manquantes; k++) {
+                    long carte;
+                    do {
+                        carte = 1L << aleatoire.nextInt(Carte.NOMBRE_CARTES);
+                    } while ((prises & carte) != 0);
+                    prises |= carte;
+                    tableau |= carte;
+                }
+                for (int i = 0; i < mains.length; i++) {
+                    rangs[i] = EvaluateurMain.evaluer(mains[i] | tableau);
+                }
+                resultat.enregistrer(rangs);
+            }
+        }
+
+        // une combinaison par joueur sans carte commune ; renvoie le masque des cartes prises
+        private long tirerMains(long[] mains, SplittableRandom aleatoire) {
+            for (int rejets = 0; rejets < REJETS_MAX; rejets++) {
+                long prises = tirage.tableau;
+                boolean conflit = false;
+                for (int i = 0; i < mains.length && !conflit; i++) {
+                    mains[i] = tirage.tirer(i, aleatoire);
+                    conflit = (prises & mains[i]) != 0;
+                    prises |= mains[i];
+                }
+                if (!conflit) {
+                    return prises;
+                }
+            }
+            throw new IllegalArgumentException("Les plages n'ont pas de combinaisons compatibles");
+        }
+    }
+}
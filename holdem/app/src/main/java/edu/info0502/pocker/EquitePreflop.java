@@ -0,0 +1,152 @@
+package edu.info0502.pocker;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Équités préflop des 169 classes de mains de départ (paires, assorties, dépareillées)
+// contre 1 à 9 adversaires aléatoires, précalculées par Monte-Carlo et lues depuis une ressource.
+// Une classe correspond à une case de la grille 13x13 : paires sur la diagonale,
+// mains assorties au-dessus (valeur haute * 13 + valeur basse), dépareillées en dessous.
+final class EquitePreflop {
+
+    static final int NOMBRE_CLASSES = 169;
+    static final int MAX_ADVERSAIRES = 9;
+    static final String RESSOURCE = "preflop169.bin";
+
+    private static final int MAGIQUE = 0x50524546; // "PREF"
+    private static final int VERSION = 1;
+    // équités stockées en dix-millièmes
+    private static final double ECHELLE = 10_000.0;
+    // essais pour une main quand la ressource est absente
+    private static final long ESSAIS_SANS_TABLE = 20_000;
+
+    private static final short[] EQUITES = charger();
+    // classes de la plus forte à la plus faible en tête-à-tête, calculé au premier appel
+    private static volatile int[] classesParEquite;
+
+    private EquitePreflop() {
+    }
+
+    static int classe(Carte carte1, Carte carte2) {
+        int v1 = carte1.getValeur().ordinal();
+        int v2 = carte2.getValeur().ordinal();
+        int haute = Math.max(v1, v2);
+        int basse = Math.min(v1, v2);
+        if (carte1.getCouleur() == carte2.getCouleur() && haute != basse) {
+            return haute * 13 + basse;
+        }
+        return basse * 13 + haute;
+    }
+
+    // probabilité de gagner le pot (égalités partagées) contre des adversaires aléatoires
+    static double equite(Carte carte1, Carte carte2, int adversaires) {
+        if (adversaires < 1 || adversaires > MAX_ADVERSAIRES) {
+            throw new IllegalArgumentException("Il faut entre 1 et " + MAX_ADVERSAIRES + " adversaires");
+        }
+        if (EQUITES == null) {
+            return new EquiteMonteCarlo().calculerContreAleatoires(List.of(carte1, carte2), adversaires,
+                    ESSAIS_SANS_TABLE, System.nanoTime()).getEquite(0);
+        }
+        return EQUITES[classe(carte1, carte2) * MAX_ADVERSAIRES + adversaires - 1] / ECHELLE;
+    }
+
+    // ordre utilisé par les plages « top N% » (voir PlageMains)
+    static int[] classesParEquite() {
+        int[] classes = classesParEquite;
+        if (classes == null) {
+            double[] equites = new double[NOMBRE_CLASSES];
+            for (int classe = 0; classe < NOMBRE_CLASSES; classe++) {
+                List<Carte> cartes = representant(classe);
+                equites[classe] = equite(cartes.get(0), cartes.get(1), 1);
+            }
+            classes = IntStream.range(0, NOMBRE_CLASSES).boxed()
+                    .sorted((a, b) -> Double.compare(equites[b], equites[a]))
+                    .mapToInt(Integer::intValue).toArray();
+            classesParEquite = classes;
+        }
+        return classes.clone();
+    }
+
+    static boolean disponible() {
+        return EQUITES != null;
+    }
+
+    private static short[] charger() {
+        try (InputStream flux = EquitePreflop.class.getResourceAsStream(RESSOURCE)) {
+            if (flux == null) {
+                System.out.println("Table des équités préflop absente, calcul par simulation");
+                return null;
+            }
+            DataInputStream entree = new DataInputStream(flux);
+            if (entree.readInt() != MAGIQUE || entree.readInt() != VERSION) {
+                System.err.println("Table des équités préflop invalide");
+                return null;
+            }
+            short[] equites = new short[NOMBRE_CLASSES * MAX_ADVERSAIRES];
+            for (int i = 0; i < equites.length; i++) {
+                equites[i] = entree.readShort();
+            }
+            return equites;
+        } catch (IOException e) {
+            System.err.println("Erreur lors du chargement des équités préflop : " + e.getMessage());
+            return null;
+        }
+    }
+
+    // deux cartes représentant une classe : coeur et pique, ou deux coeurs pour une main assortie
+    private static List<Carte> representant(int classe) {
+        Valeur[] valeurs = Valeur.values();
+        int ligne = classe / 13;
+        int colonne = classe % 13;
+        if (ligne > colonne) {
+            return List.of(Carte.valueOf(Couleur.COEUR, valeurs[ligne]),
+                    Carte.valueOf(Couleur.COEUR, valeurs[colonne]));
+        }
+        return List.of(Carte.valueOf(Couleur.COEUR, valeurs[colonne]),
+                Carte.valueOf(Couleur.PIQUE, valeurs[ligne]));
+    }
+
+    static void generer(Path fichier, long essais) throws IOException {
+        EquiteMonteCarlo equite = new EquiteMonteCarlo(ForkJoinPool.commonPool());
+        short[] equites = new short[NOMBRE_CLASSES * MAX_ADVERSAIRES];
+        // chaque case est elle-même découpée en lots par EquiteMonteCarlo
+        IntStream.range(0, equites.length).parallel().forEach(i -> {
+            int classe = i / MAX_ADVERSAIRES;
+            int adversaires = i % MAX_ADVERSAIRES + 1;
+            ResultatEquite resultat = equite.calculerContreAleatoires(representant(classe), adversaires, essais, i);
+            equites[i] = (short) Math.round(resultat.getEquite(0) * ECHELLE);
+        });
+
+        Path dossier = fichier.toAbsolutePath().getParent();
+        if (dossier != null) {
+            Files.createDirectories(dossier);
+        }
+        try (OutputStream fluxFichier = Files.newOutputStream(fichier);
+             DataOutputStream sortie = new DataOutputStream(new BufferedOutputStream(fluxFichier))) {
+            sortie.writeInt(MAGIQUE);
+            sortie.writeInt(VERSION);
+            for (short valeur : equites) {
+                sortie.writeShort(valeur);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path fichier = Paths.get(args.length > 0 ? args[0] : RESSOURCE);
+        long essais = args.length > 1 ? Long.parseLong(args[1]) : 200_000;
+        long debut = System.nanoTime();
+        generer(fichier, essais);
+        System.out.printf("Équités préflop écrites dans %s (%d essais par case, %.1f s)%n",
+                fichier, essais, (System.nanoTime() - debut) / 1e9);
+    }
+}
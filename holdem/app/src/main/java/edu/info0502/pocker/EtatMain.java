@@ -0,0 +1,77 @@
+package edu.info0502.pocker;
+
+// État d'évaluation tenu à jour carte par carte (cartes privées puis flop, turn et river).
+// Chaque ajout met à jour en O(1) les masques par couleur et les masques des valeurs
+// présentes au moins 1, 2, 3 et 4 fois ; le rang est ensuite lu sans reparcourir les cartes.
+class EtatMain {
+    private final int[] couleurs = new int[Couleur.values().length];
+    private int auMoins1;
+    private int auMoins2;
+    private int auMoins3;
+    private int quatre;
+    private long masque;
+    private int nombreCartes;
+    // rang mis en cache jusqu'à la prochaine carte, 0 s'il n'est pas calculé
+    private int rang;
+
+    void reinitialiser() {
+        for (int i = 0; i < couleurs.length; i++) {
+            couleurs[i] = 0;
+        }
+        auMoins1 = 0;
+        auMoins2 = 0;
+        auMoins3 = 0;
+        quatre = 0;
+        masque = 0L;
+        nombreCartes = 0;
+        rang = 0;
+    }
+
+    void ajouter(Carte carte) {
+        if ((masque & carte.getMasque()) != 0) {
+            throw new IllegalStateException("Carte déjà présente: " + carte);
+        }
+        int bit = 1 << carte.getValeur().ordinal();
+        if ((auMoins3 & bit) != 0) {
+            quatre |= bit;
+        } else if ((auMoins2 & bit) != 0) {
+            auMoins3 |= bit;
+        } else if ((auMoins1 & bit) != 0) {
+            auMoins2 |= bit;
+        } else {
+            auMoins1 |= bit;
+        }
+        couleurs[carte.getCouleur().ordinal()] |= bit;
+        masque |= carte.getMasque();
+        nombreCartes++;
+        rang = 0;
+    }
+
+    int getNombreCartes() {
+        return nombreCartes;
+    }
+
+    long getMasque() {
+        return masque;
+    }
+
+    // rang de la meilleure main de 5 cartes, identique à EvaluateurMain.evaluer(getMasque())
+    int getRang() {
+        if (nombreCartes < Main.getTailleMain()) {
+            throw new IllegalStateException("Il faut au moins 5 cartes pour évaluer la main");
+        }
+        if (rang == 0) {
+            rang = calculerRang();
+        }
+        return rang;
+    }
+
+    private int calculerRang() {
+        for (int valeurs : couleurs) {
+            if (Integer.bitCount(valeurs) >= 5) {
+                return EvaluateurMain.evaluerCouleur(valeurs);
+            }
+        }
+        return EvaluateurMain.evaluerSansCouleur(auMoins1, auMoins2, auMoins3, quatre);
+    }
+}
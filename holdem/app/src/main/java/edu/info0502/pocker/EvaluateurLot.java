@@ -0,0 +1,99 @@
+package edu.info0502.pocker;
+
+import java.util.SplittableRandom;
+
+// Évaluation d'un lot de mains (masques de 5 à 7 cartes) en un seul appel, utilisée par
+// EquiteMonteCarlo. Par défaut, la boucle scalaire sur EvaluateurMain ; la version de l'API Vector
+// (EvaluateurLotVectoriel, ensemble de sources vectoriel) n'est prise que si elle est sur le classpath
+// et que le module est chargé (--add-modules jdk.incubator.vector). Le module n'est pas ajouté
+// au lancement du serveur : sur les machines mesurées, la version vectorielle reste plus lente
+// que la version scalaire (tâche Gradle comparerEvaluateurs).
+final class EvaluateurLot {
+
+    static final String CLASSE_VECTORIELLE = "edu.info0502.pocker.EvaluateurLotVectoriel";
+
+    interface Evaluation {
+        // nombre de mains traitées ensemble
+        int largeur();
+
+        void evaluer(long[] masques, int[] rangs, int nombre);
+    }
+
+    private static final Evaluation VECTORIELLE = chargerVectorielle();
+
+    private EvaluateurLot() {
+    }
+
+    static boolean estVectoriel() {
+        return VECTORIELLE != null;
+    }
+
+    // rangs[i] reçoit le rang de masques[i] pour i < nombre
+    static void evaluer(long[] masques, int[] rangs, int nombre) {
+        if (VECTORIELLE != null) {
+            VECTORIELLE.evaluer(masques, rangs, nombre);
+        } else {
+            evaluerScalaire(masques, rangs, nombre);
+        }
+    }
+
+    static void evaluerScalaire(long[] masques, int[] rangs, int nombre) {
+        for (int i = 0; i < nombre; i++) {
+            rangs[i] = EvaluateurMain.evaluer(masques[i]);
+        }
+    }
+
+    private static Evaluation chargerVectorielle() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            Evaluation evaluation = (Evaluation) Class.forName(CLASSE_VECTORIELLE).getDeclaredConstructor().newInstance();
+            return evaluation.largeur() > 1 ? evaluation : null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    // comparaison du débit des deux versions sur des mains de 7 cartes tirées au hasard
+    public static void main(String[] args) {
+        int taille = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int tours = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        long[] masques = new long[taille];
+        SplittableRandom aleatoire = new SplittableRandom(42);
+        for (int i = 0; i < taille; i++) {
+            long masque = 0L;
+            while (Long.bitCount(masque) < 7) {
+                masque |= 1L << aleatoire.nextInt(52);
+            }
+            masques[i] = masque;
+        }
+
+        int[] attendus = new int[taille];
+        int[] rangs = new int[taille];
+        evaluerScalaire(masques, attendus, taille);
+        evaluer(masques, rangs, taille);
+        for (int i = 0; i < taille; i++) {
+            if (rangs[i] != attendus[i]) {
+                throw new IllegalStateException("Rangs différents pour le masque " + Long.toHexString(masques[i]));
+            }
+        }
+
+        System.out.println("API Vector: " + (estVectoriel() ? "oui (" + VECTORIELLE.largeur() + " voies)" : "non"));
+        for (int passe = 0; passe < 5; passe++) {
+            long debut = System.nanoTime();
+            for (int t = 0; t < tours; t++) {
+                evaluerScalaire(masques, rangs, taille);
+            }
+            double scalaire = (double) taille * tours / (System.nanoTime() - debut) * 1e3;
+
+            debut = System.nanoTime();
+            for (int t = 0; t < tours; t++) {
+                evaluer(masques, rangs, taille);
+            }
+            double lot = (double) taille * tours / (System.nanoTime() - debut) * 1e3;
+            System.out.printf("Passe %d : scalaire %.1f M mains/s, lot %.1f M mains/s (x%.2f)%n",
+                    passe + 1, scalaire, lot, lot / scalaire);
+        }
+    }
+}
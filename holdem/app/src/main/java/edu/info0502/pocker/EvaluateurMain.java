@@ -0,0 +1,144 @@
+package edu.info0502.pocker;
+
+import java.util.List;
+
+// Évaluateur de mains sur un masque de 52 bits (13 bits par couleur, voir Carte.getIndice).
+// Le résultat est un rang entier : la combinaison dans les bits 20 à 23, puis
+// jusqu'à cinq valeurs de départage (0 = DEUX ... 12 = AS) sur 4 bits chacune.
+// Deux rangs se comparent directement comme des entiers. Aucune allocation par appel.
+final class EvaluateurMain {
+
+    static final int DECALAGE_COMBINAISON = 20;
+    private static final int MASQUE_COULEUR = 0x1FFF;
+    private static final CombinaisonPoker[] COMBINAISONS = CombinaisonPoker.values();
+
+    private EvaluateurMain() {
+    }
+
+    // meilleur rang parmi 5 à 7 cartes
+    static int evaluer(long masque) {
+        int coeur = couleur(masque, Couleur.COEUR.ordinal());
+        int carreau = couleur(masque, Couleur.CARREAU.ordinal());
+        int pique = couleur(masque, Couleur.PIQUE.ordinal());
+        int trefle = couleur(masque, Couleur.TREFLE.ordinal());
+
+        int rangCouleur = evaluerCouleurs(coeur, carreau, pique, trefle);
+        if (rangCouleur != 0) {
+            return rangCouleur;
+        }
+
+        int auMoins1 = trefle | carreau | coeur | pique;
+        int auMoins2 = (trefle & carreau) | (trefle & coeur) | (trefle & pique)
+                | (carreau & coeur) | (carreau & pique) | (coeur & pique);
+        int auMoins3 = (trefle & carreau & coeur) | (trefle & carreau & pique)
+                | (trefle & coeur & pique) | (carreau & coeur & pique);
+        int quatre = trefle & carreau & coeur & pique;
+        return evaluerSansCouleur(auMoins1, auMoins2, auMoins3, quatre);
+    }
+
+    static int evaluer(List<Carte> cartes) {
+        long masque = 0L;
+        for (Carte carte : cartes) {
+            masque |= carte.getMasque();
+        }
+        return evaluer(masque);
+    }
+
+    static int couleur(long masque, int couleur) {
+        return (int) (masque >>> (13 * couleur)) & MASQUE_COULEUR;
+    }
+
+    // avec au plus 7 cartes, une couleur exclut carré et full : elle gagne dès qu'elle existe
+    private static int evaluerCouleurs(int coeur, int carreau, int pique, int trefle) {
+        if (Integer.bitCount(coeur) >= 5) return evaluerCouleur(coeur);
+        if (Integer.bitCount(carreau) >= 5) return evaluerCouleur(carreau);
+        if (Integer.bitCount(pique) >= 5) return evaluerCouleur(pique);
+        if (Integer.bitCount(trefle) >= 5) return evaluerCouleur(trefle);
+        return 0;
+    }
+
+    // rang d'une couleur (au moins 5 valeurs dans la même couleur)
+    static int evaluerCouleur(int valeurs) {
+        int hauteur = hauteurQuinte(valeurs);
+        if (hauteur == Valeur.AS.ordinal()) {
+            return rang(CombinaisonPoker.QUINTE_FLUSH_ROYALE, hauteur << 16);
+        }
+        if (hauteur >= 0) {
+            return rang(CombinaisonPoker.QUINTE_FLUSH, hauteur << 16);
+        }
+        return rang(CombinaisonPoker.COULEUR, plusHautes(valeurs, 5));
+    }
+
+    // rang sans couleur à partir des valeurs présentes au moins 1, 2, 3 et 4 fois
+    static int evaluerSansCouleur(int auMoins1, int auMoins2, int auMoins3, int quatre) {
+        if (quatre != 0) {
+            int carre = plusHaute(quatre);
+            return rang(CombinaisonPoker.CARRE,
+                    (carre << 16) | plusHautes(auMoins1 & ~(1 << carre), 1) >>> 4);
+        }
+        if (auMoins3 != 0) {
+            int brelan = plusHaute(auMoins3);
+            int paires = auMoins2 & ~(1 << brelan);
+            if (paires != 0) {
+                return rang(CombinaisonPoker.FULL, (brelan << 16) | (plusHaute(paires) << 12));
+            }
+        }
+        int hauteur = hauteurQuinte(auMoins1);
+        if (hauteur >= 0) {
+            return rang(CombinaisonPoker.QUINTE, hauteur << 16);
+        }
+        if (auMoins3 != 0) {
+            int brelan = plusHaute(auMoins3);
+            return rang(CombinaisonPoker.BRELAN,
+                    (brelan << 16) | plusHautes(auMoins1 & ~(1 << brelan), 2) >>> 4);
+        }
+        if (Integer.bitCount(auMoins2) >= 2) {
+            int haute = plusHaute(auMoins2);
+            int basse = plusHaute(auMoins2 & ~(1 << haute));
+            int kicker = plusHaute(auMoins1 & ~(1 << haute) & ~(1 << basse));
+            return rang(CombinaisonPoker.DEUX_PAIRES, (haute << 16) | (basse << 12) | (kicker << 8));
+        }
+        if (auMoins2 != 0) {
+            int paire = plusHaute(auMoins2);
+            return rang(CombinaisonPoker.PAIRE,
+                    (paire << 16) | plusHautes(auMoins1 & ~(1 << paire), 3) >>> 4);
+        }
+        return rang(CombinaisonPoker.CARTE_HAUTE, plusHautes(auMoins1, 5));
+    }
+
+    static CombinaisonPoker combinaison(int rang) {
+        return COMBINAISONS[(rang >>> DECALAGE_COMBINAISON) - 1];
+    }
+
+    private static int rang(CombinaisonPoker combinaison, int departage) {
+        return (combinaison.getValeur() << DECALAGE_COMBINAISON) | departage;
+    }
+
+    // valeur la plus haute de la quinte contenue dans le masque, -1 s'il n'y en a pas
+    private static int hauteurQuinte(int valeurs) {
+        // l'as compte aussi comme un 1 : on le recopie sous le deux
+        int etendu = (valeurs << 1) | (valeurs >>> 12);
+        int quintes = etendu & (etendu << 1) & (etendu << 2) & (etendu << 3) & (etendu << 4);
+        if (quintes == 0) {
+            return -1;
+        }
+        return plusHaute(quintes) - 1;
+    }
+
+    private static int plusHaute(int valeurs) {
+        return 31 - Integer.numberOfLeadingZeros(valeurs);
+    }
+
+    // les n valeurs les plus hautes, rangées sur 4 bits à partir du bit 16 vers le bas
+    private static int plusHautes(int valeurs, int n) {
+        int resultat = 0;
+        int decalage = 16;
+        for (int i = 0; i < n && valeurs != 0; i++) {
+            int valeur = plusHaute(valeurs);
+            resultat |= valeur << decalage;
+            valeurs &= ~(1 << valeur);
+            decalage -= 4;
+        }
+        return resultat;
+    }
+}
@@ -0,0 +1,59 @@
+package edu.info0502.pocker;
+
+// Évaluation Omaha : la main utilise exactement 2 des 4 cartes privées et 3 des cartes communes,
+// soit 6 x 10 = 60 mains de 5 cartes à la river. Les sous-ensembles sont parcourus par
+// IterateurCombinaisons sur les positions des cartes dans chaque masque : aucune liste n'est construite.
+final class EvaluateurOmaha {
+
+    static final int CARTES_PRIVEES_UTILISEES = 2;
+    static final int CARTES_COMMUNES_UTILISEES = 3;
+
+    private EvaluateurOmaha() {
+    }
+
+    // rang (voir EvaluateurMain) de la meilleure main, avec au moins 3 cartes communes
+    static int evaluer(long cartesPrivees, long tableau) {
+        return EvaluateurMain.evaluer(meilleureMain(cartesPrivees, tableau));
+    }
+
+    // masque des 5 cartes de la meilleure main
+    static long meilleureMain(long cartesPrivees, long tableau) {
+        int nombrePrivees = Long.bitCount(cartesPrivees);
+        int nombreCommunes = Long.bitCount(tableau);
+        if (nombrePrivees < CARTES_PRIVEES_UTILISEES || nombreCommunes < CARTES_COMMUNES_UTILISEES) {
+            throw new IllegalStateException("Il faut au moins 2 cartes privées et 3 cartes communes");
+        }
+        long[] privees = cartes(cartesPrivees, nombrePrivees);
+        long[] communes = cartes(tableau, nombreCommunes);
+        IterateurCombinaisons deuxParmi = new IterateurCombinaisons(nombrePrivees, CARTES_PRIVEES_UTILISEES);
+        IterateurCombinaisons troisParmi = new IterateurCombinaisons(nombreCommunes, CARTES_COMMUNES_UTILISEES);
+        int[] p = new int[CARTES_PRIVEES_UTILISEES];
+        int[] c = new int[CARTES_COMMUNES_UTILISEES];
+
+        long meilleure = 0L;
+        int meilleurRang = -1;
+        while (deuxParmi.suivante(p)) {
+            long deux = privees[p[0]] | privees[p[1]];
+            troisParmi.reinitialiser();
+            while (troisParmi.suivante(c)) {
+                long main = deux | communes[c[0]] | communes[c[1]] | communes[c[2]];
+                int rang = EvaluateurMain.evaluer(main);
+                if (rang > meilleurRang) {
+                    meilleurRang = rang;
+                    meilleure = main;
+                }
+            }
+        }
+        return meilleure;
+    }
+
+    // bits du masque un par un, du plus faible au plus fort
+    private static long[] cartes(long masque, int nombre) {
+        long[] cartes = new long[nombre];
+        for (int i = 0; i < nombre; i++) {
+            cartes[i] = masque & -masque;
+            masque &= masque - 1;
+        }
+        return cartes;
+    }
+}
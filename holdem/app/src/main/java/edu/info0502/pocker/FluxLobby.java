@@ -0,0 +1,318 @@
+package edu.info0502.pocker;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Liste des tables d'un shard, diffusée en dehors de poker/game :
+//   poker/lobby/<shard>/snapshot : instantané retenu (toutes les tables et sa version),
+//   poker/lobby/<shard>/deltas   : un message par changement (ajout, retrait, occupation),
+//                                  numéroté de 1 en 1 à partir de la version de l'instantané.
+// Le serveur tient l'original (modifier), chaque client ou autre shard une copie (appliquer) :
+// un delta manquant est une lacune, la copie se recale alors sur le prochain instantané reçu.
+// La génération change à chaque démarrage du serveur, les numéros repartent de zéro avec elle.
+// Original et copies tiennent les tables dans des index triés (places libres, statut, administrateur)
+// mis à jour en O(log n) à chaque changement, pour les recherches paginées de LIST_TABLES.
+final class FluxLobby {
+
+    static final String TOPIC_PREFIX = "poker/lobby/";
+    static final String SNAPSHOT_SUFFIX = "/snapshot";
+    static final String DELTAS_SUFFIX = "/deltas";
+    static final String SNAPSHOTS = TOPIC_PREFIX + "+" + SNAPSHOT_SUFFIX;
+    static final String DELTAS = TOPIC_PREFIX + "+" + DELTAS_SUFFIX;
+    // deltas gardés en attendant l'instantané qui les précède
+    private static final int ATTENTE_MAX = 1024;
+
+    enum Nature {
+        AJOUT, RETRAIT, OCCUPATION
+    }
+
+    // ce qu'un client voit d'une table
+    static final class Table {
+        private final String tableId;
+        private final String admin;
+        private final int players;
+        private final int seats;
+        private final boolean inProgress;
+
+        Table(String tableId, String admin, int players, int seats, boolean inProgress) {
+            this.tableId = tableId;
+            this.admin = admin;
+            this.players = players;
+            this.seats = seats;
+            this.inProgress = inProgress;
+        }
+
+        String getTableId() {
+            return tableId;
+        }
+
+        String getAdmin() {
+            return admin;
+        }
+
+        int getPlayers() {
+            return players;
+        }
+
+        int getSeats() {
+            return seats;
+        }
+
+        int getLibres() {
+            return seats - players;
+        }
+
+        boolean isInProgress() {
+            return inProgress;
+        }
+
+        @Override
+        public boolean equals(Object autre) {
+            if (!(autre instanceof Table)) {
+                return false;
+            }
+            Table table = (Table) autre;
+            return tableId.equals(table.tableId) && Objects.equals(admin, table.admin)
+                    && players == table.players && seats == table.seats && inProgress == table.inProgress;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tableId, admin, players, seats, inProgress);
+        }
+    }
+
+    static final class Instantane {
+        private final int shard;
+        private final long generation;
+        private final long version;
+        private final List<Table> tables;
+
+        Instantane(int shard, long generation, long version, List<Table> tables) {
+            this.shard = shard;
+            this.generation = generation;
+            this.version = version;
+            this.tables = tables;
+        }
+
+        int getShard() {
+            return shard;
+        }
+    }
+
+    static final class Delta {
+        private final int shard;
+        private final long generation;
+        private final long sequence;
+        private final Nature nature;
+        private final String tableId;
+        // nouvel état de la table, null pour un retrait
+        private final Table table;
+
+        Delta(int shard, long generation, long sequence, Nature nature, String tableId, Table table) {
+            this.shard = shard;
+            this.generation = generation;
+            this.sequence = sequence;
+            this.nature = nature;
+            this.tableId = tableId;
+            this.table = table;
+        }
+
+        int getShard() {
+            return shard;
+        }
+
+        Nature getNature() {
+            return nature;
+        }
+
+        String getTableId() {
+            return tableId;
+        }
+
+        Table getTable() {
+            return table;
+        }
+    }
+
+    private final int shard;
+    private long generation;
+    // -1 tant qu'aucun instantané n'a été reçu
+    private long version;
+    private final TreeMap<String, Table> tables = new TreeMap<>();
+    // index secondaires, tous dans l'ordre de RequeteTables.ORDRE
+    private final NavigableSet<Table> parPlaces = new TreeSet<>(RequeteTables.ORDRE);
+    private final NavigableSet<Table> enAttenteDeJoueurs = new TreeSet<>(RequeteTables.ORDRE);
+    private final NavigableSet<Table> enPartie = new TreeSet<>(RequeteTables.ORDRE);
+    private final NavigableSet<Table> parAdmin = new TreeSet<>(Comparator
+            .comparing(Table::getAdmin, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(RequeteTables.ORDRE));
+    private final TreeMap<Long, Delta> enAttente = new TreeMap<>();
+    private boolean lacune;
+
+    // copie, en attente du premier instantané
+    FluxLobby(int shard) {
+        this.shard = shard;
+        this.version = -1;
+    }
+
+    // original tenu par le serveur du shard
+    FluxLobby(int shard, long generation) {
+        this.shard = shard;
+        this.generation = generation;
+        this.version = 0;
+    }
+
+    static String topicInstantane(int shard) {
+        return TOPIC_PREFIX + shard + SNAPSHOT_SUFFIX;
+    }
+
+    static String topicDeltas(int shard) {
+        return TOPIC_PREFIX + shard + DELTAS_SUFFIX;
+    }
+
+    // côté serveur : nouvel état d'une table (null si elle est fermée) ; renvoie le delta à publier,
+    // ou null si rien n'a changé
+    synchronized Delta modifier(String tableId, Table table) {
+        Table ancienne = tables.get(tableId);
+        if (Objects.equals(ancienne, table)) {
+            return null;
+        }
+        remplacer(tableId, table);
+        Nature nature = ancienne == null ? Nature.AJOUT : table == null ? Nature.RETRAIT : Nature.OCCUPATION;
+        return new Delta(shard, generation, ++version, nature, tableId, table);
+    }
+
+    synchronized Instantane instantane() {
+        return new Instantane(shard, generation, version, new ArrayList<>(tables.values()));
+    }
+
+    // côté copie : faux si ce delta révèle une lacune, il faut alors relire l'instantané
+    synchronized boolean appliquer(Delta delta) {
+        if (version >= 0 && delta.generation == generation && !lacune) {
+            if (delta.sequence <= version) {
+                return true;
+            }
+            if (delta.sequence == version + 1) {
+                executer(delta);
+                return true;
+            }
+        }
+        mettreEnAttente(delta);
+        if (version < 0 || lacune) {
+            // l'instantané retenu est déjà demandé
+            return true;
+        }
+        lacune = true;
+        return false;
+    }
+
+    // vrai si la copie est à jour après cet instantané
+    synchronized boolean appliquer(Instantane instantane) {
+        if (instantane.generation == generation && instantane.version <= version && !lacune) {
+            return true;
+        }
+        if (instantane.generation != generation) {
+            enAttente.values().removeIf(delta -> delta.generation != instantane.generation);
+        }
+        generation = instantane.generation;
+        version = instantane.version;
+        tables.clear();
+        parPlaces.clear();
+        enAttenteDeJoueurs.clear();
+        enPartie.clear();
+        parAdmin.clear();
+        for (Table table : instantane.tables) {
+            remplacer(table.tableId, table);
+        }
+        // rejoue les deltas arrivés avant lui
+        Iterator<Delta> suivants = enAttente.values().iterator();
+        while (suivants.hasNext()) {
+            Delta delta = suivants.next();
+            if (delta.sequence > version + 1) {
+                break;
+            }
+            if (delta.sequence == version + 1) {
+                executer(delta);
+            }
+            suivants.remove();
+        }
+        lacune = !enAttente.isEmpty();
+        return !lacune;
+    }
+
+    synchronized List<Table> getTables() {
+        return new ArrayList<>(tables.values());
+    }
+
+    // au plus nombre tables après le curseur de la requête, dans l'ordre de RequeteTables.ORDRE :
+    // l'index parcouru est celui du filtre le plus sélectif, le parcours s'arrête aux places minimum
+    synchronized List<Table> chercher(RequeteTables requete, int nombre) {
+        NavigableSet<Table> index = requete.getAdmin() != null ? parAdmin
+                : requete.getEnCours() == null ? parPlaces
+                : requete.getEnCours() ? enPartie : enAttenteDeJoueurs;
+        Table depart = requete.aCurseur()
+                ? sonde(requete.getAdmin(), requete.getCurseurLibres(), requete.getCurseurId())
+                : sonde(requete.getAdmin(), Integer.MAX_VALUE, "");
+        List<Table> page = new ArrayList<>();
+        for (Table table : index.tailSet(depart, false)) {
+            if (requete.getAdmin() != null && !requete.getAdmin().equals(table.admin)
+                    || table.getLibres() < requete.getPlacesMin()) {
+                break;
+            }
+            if (requete.accepte(table)) {
+                page.add(table);
+                if (page.size() == nombre) {
+                    break;
+                }
+            }
+        }
+        return page;
+    }
+
+    synchronized long getVersion() {
+        return version;
+    }
+
+    int getShard() {
+        return shard;
+    }
+
+    private void executer(Delta delta) {
+        remplacer(delta.tableId, delta.table);
+        version = delta.sequence;
+    }
+
+    // O(log n) : la table et ses entrées dans chaque index
+    private void remplacer(String tableId, Table table) {
+        Table ancienne = table != null ? tables.put(tableId, table) : tables.remove(tableId);
+        if (ancienne != null) {
+            parPlaces.remove(ancienne);
+            (ancienne.inProgress ? enPartie : enAttenteDeJoueurs).remove(ancienne);
+            parAdmin.remove(ancienne);
+        }
+        if (table != null) {
+            parPlaces.add(table);
+            (table.inProgress ? enPartie : enAttenteDeJoueurs).add(table);
+            parAdmin.add(table);
+        }
+    }
+
+    // table fictive placée à une position de l'ordre des index
+    private static Table sonde(String admin, int libres, String tableId) {
+        return new Table(tableId, admin, 0, libres, false);
+    }
+
+    private void mettreEnAttente(Delta delta) {
+        enAttente.put(delta.sequence, delta);
+        if (enAttente.size() > ATTENTE_MAX) {
+            enAttente.pollFirstEntry();
+        }
+    }
+}
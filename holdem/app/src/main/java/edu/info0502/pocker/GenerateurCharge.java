@@ -0,0 +1,311 @@
+package edu.info0502.pocker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import com.google.gson.Gson;
+
+// Générateur de charge : des milliers de joueurs simulés, chacun sur un fil virtuel avec sa propre
+// connexion, envoient les mêmes messages que Subscriber. Par table, le premier joueur crée la table,
+// les autres la rejoignent, puis l'administrateur enchaîne les donnes (START_GAME) pendant que les
+// autres consultent le lobby (LIST_TABLES). Affiche les centiles de latence par commande, les donnes/s
+// et les messages/s. Avec l'adresse "local", le serveur tourne dans la JVM sur le bus en mémoire.
+final class GenerateurCharge {
+
+    private static final long DELAI_REPONSE_MS = 10_000;
+    // après un START_GAME échoué, l'administrateur attend avant de relancer, deux fois plus à chaque
+    // échec consécutif ; au-delà de ECHECS_CONSECUTIFS_MAX, il abandonne sa table
+    private static final long PAUSE_ECHEC_MS = 100;
+    private static final long PAUSE_ECHEC_MAX_MS = 5000;
+    private static final int ECHECS_CONSECUTIFS_MAX = 5;
+    // pause moyenne entre deux LIST_TABLES d'un même joueur
+    private static final long PAUSE_LISTE_MS = 250;
+
+    private final String adresse;
+    private final boolean binaire;
+    private final Gson gson = new Gson();
+    private final Map<TypeCommande, Histogramme> latences = new EnumMap<>(TypeCommande.class);
+    private final Map<TypeCommande, LongAdder> echecs = new EnumMap<>(TypeCommande.class);
+    // de START_GAME au résultat reçu par l'administrateur
+    private final Histogramme dureesDonnes = new Histogramme();
+    private final LongAdder donnes = new LongAdder();
+    private final LongAdder envoyes = new LongAdder();
+    private final LongAdder recus = new LongAdder();
+    private volatile long fin;
+
+    private GenerateurCharge(String adresse, boolean binaire) {
+        this.adresse = adresse;
+        this.binaire = binaire;
+        for (TypeCommande type : TypeCommande.values()) {
+            latences.put(type, new Histogramme());
+            echecs.put(type, new LongAdder());
+        }
+    }
+
+    private void executer(int joueurs, int joueursParTable, long secondes) throws InterruptedException {
+        long debut = System.nanoTime();
+        fin = debut + TimeUnit.SECONDS.toNanos(secondes);
+        List<Thread> fils = new ArrayList<>(joueurs);
+        for (int premier = 0; premier < joueurs; premier += joueursParTable) {
+            int taille = Math.min(joueursParTable, joueurs - premier);
+            // l'identifiant de la table, connu quand le serveur a répondu à l'administrateur
+            AtomicReference<String> table = new AtomicReference<>();
+            CountDownLatch creee = new CountDownLatch(1);
+            CountDownLatch rejointe = new CountDownLatch(taille - 1);
+            for (int rang = 0; rang < taille; rang++) {
+                JoueurSimule joueur = new JoueurSimule("charge-" + (premier + rang));
+                boolean administrateur = rang == 0;
+                fils.add(Thread.ofVirtual().name(joueur.nom).start(() -> {
+                    try {
+                        joueur.connecter();
+                        if (administrateur) {
+                            joueur.administrer(table, creee, rejointe, taille);
+                        } else {
+                            joueur.rejoindre(table, creee, rejointe);
+                        }
+                    } catch (IOException e) {
+                        System.err.println("Connexion impossible pour " + joueur.nom + " : " + e.getMessage());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        joueur.fermer();
+                    }
+                }));
+            }
+        }
+        for (Thread fil : fils) {
+            fil.join();
+        }
+        rapport(joueurs, (System.nanoTime() - debut) / 1e9);
+    }
+
+    private void rapport(int joueurs, double secondes) {
+        System.out.printf("%d joueurs, %.1f s, transport %s, protocole %s%n",
+                joueurs, secondes, adresse, binaire ? "binaire" : "JSON");
+        for (TypeCommande type : TypeCommande.values()) {
+            Histogramme latence = latences.get(type);
+            long echec = echecs.get(type).sum();
+            if (latence.getNombre() > 0 || echec > 0) {
+                System.out.printf("%-13s %s, échecs=%d%n", type, latence.resumer(), echec);
+            }
+        }
+        System.out.printf("%-13s %s%n", "donne", dureesDonnes.resumer());
+        System.out.printf("Débit : %.1f donnes/s, %.0f messages envoyés/s, %.0f messages reçus/s%n",
+                donnes.sum() / secondes, envoyes.sum() / secondes, recus.sum() / secondes);
+    }
+
+    private class JoueurSimule implements Transport.Reception {
+        private final String nom;
+        private final BlockingQueue<String> boite = new LinkedBlockingQueue<>();
+        private Transport transport;
+        private volatile boolean binaireAccepte;
+
+        JoueurSimule(String nom) {
+            this.nom = nom;
+        }
+
+        void connecter() throws IOException, InterruptedException {
+            transport = Transport.connecter(adresse, "charge-" + nom);
+            transport.setReception(this);
+            // uniquement le topic personnel : les messages de table seraient autant de bruit à lire
+            transport.abonner(Publisher.PLAYER_TOPIC_PREFIX + nom).join();
+            if (binaire) {
+                envoyer(TypeCommande.HELLO, Map.of("version", String.valueOf(ProtocoleBinaire.VERSION)));
+                // sans réponse, le joueur reste en JSON comme Subscriber
+                attendre("Protocole binaire");
+            }
+        }
+
+        void administrer(AtomicReference<String> table, CountDownLatch creee, CountDownLatch rejointe, int taille)
+                throws InterruptedException {
+            long debut = System.nanoTime();
+            envoyer(TypeCommande.CREATE_TABLE, Map.of());
+            String reponse = attendre(Publisher.TABLE_CREATED);
+            if (reponse == null) {
+                echecs.get(TypeCommande.CREATE_TABLE).increment();
+                creee.countDown();
+                return;
+            }
+            latences.get(TypeCommande.CREATE_TABLE).enregistrerDepuis(debut);
+            table.set(reponse.substring(reponse.lastIndexOf(' ') + 1));
+            creee.countDown();
+            if (taille < 2) {
+                consulter();
+                return;
+            }
+            rejointe.await(DELAI_REPONSE_MS, TimeUnit.MILLISECONDS);
+
+            int echecsConsecutifs = 0;
+            while (System.nanoTime() < fin) {
+                debut = System.nanoTime();
+                envoyer(TypeCommande.START_GAME, Map.of("tableId", table.get()));
+                boolean commencee = attendre(Publisher.HOLE_CARDS) != null;
+                if (commencee) {
+                    latences.get(TypeCommande.START_GAME).enregistrerDepuis(debut);
+                }
+                // le résultat est le dernier message personnel de la donne
+                if (!commencee || attendre(Publisher.RESULT) == null) {
+                    echecs.get(TypeCommande.START_GAME).increment();
+                    if (++echecsConsecutifs >= ECHECS_CONSECUTIFS_MAX) {
+                        System.err.println("Table " + table.get() + " abandonnée après " + echecsConsecutifs
+                                + " échecs consécutifs");
+                        return;
+                    }
+                    // relancer aussitôt ne ferait que charger davantage un serveur déjà en difficulté
+                    Thread.sleep(Math.min(PAUSE_ECHEC_MS << (echecsConsecutifs - 1), PAUSE_ECHEC_MAX_MS));
+                    continue;
+                }
+                echecsConsecutifs = 0;
+                dureesDonnes.enregistrerDepuis(debut);
+                donnes.increment();
+            }
+        }
+
+        void rejoindre(AtomicReference<String> table, CountDownLatch creee, CountDownLatch rejointe)
+                throws InterruptedException {
+            creee.await();
+            if (table.get() != null) {
+                long debut = System.nanoTime();
+                envoyer(TypeCommande.JOIN_TABLE, Map.of("tableId", table.get()));
+                if (attendre(Publisher.TABLE_JOINED) != null) {
+                    latences.get(TypeCommande.JOIN_TABLE).enregistrerDepuis(debut);
+                } else {
+                    echecs.get(TypeCommande.JOIN_TABLE).increment();
+                }
+            }
+            rejointe.countDown();
+            consulter();
+        }
+
+        // LIST_TABLES à intervalles irréguliers, pour ne pas synchroniser tous les joueurs
+        private void consulter() throws InterruptedException {
+            while (System.nanoTime() < fin) {
+                long debut = System.nanoTime();
+                envoyer(TypeCommande.LIST_TABLES, Map.of("limit", "20"));
+                if (attendre(Publisher.TABLE_LIST) != null) {
+                    latences.get(TypeCommande.LIST_TABLES).enregistrerDepuis(debut);
+                } else {
+                    echecs.get(TypeCommande.LIST_TABLES).increment();
+                }
+                Thread.sleep(ThreadLocalRandom.current().nextLong(PAUSE_LISTE_MS * 2));
+            }
+        }
+
+        // même format que Subscriber : JSON, ou trame binaire une fois le protocole accepté
+        private void envoyer(TypeCommande type, Map<String, String> champs) {
+            Map<String, String> data = new HashMap<>(champs);
+            data.put("player", nom);
+            byte[] contenu = binaireAccepte
+                    ? ProtocoleBinaire.encoderCommande(type.name(), data)
+                    : gson.toJson(new Subscriber.MessagePayload(type.name(), data)).getBytes(StandardCharsets.UTF_8);
+            envoyes.increment();
+            transport.publier(Publisher.COMMAND_TOPIC, contenu, false).exceptionally(e -> {
+                System.err.println("Erreur lors de l'envoi pour " + nom + " : " + e.getMessage());
+                return null;
+            });
+        }
+
+        // premier message commençant par attendu, ou null sur une erreur du serveur ou après le délai ;
+        // les autres messages (donnes en cours, etc.) sont ignorés
+        private String attendre(String attendu) throws InterruptedException {
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DELAI_REPONSE_MS);
+            long reste;
+            while ((reste = limite - System.nanoTime()) > 0) {
+                String message = boite.poll(reste, TimeUnit.NANOSECONDS);
+                if (message == null) {
+                    break;
+                }
+                if (message.startsWith(attendu)) {
+                    return message;
+                }
+                for (String erreur : Publisher.ERROR_REPLIES) {
+                    if (message.startsWith(erreur)) {
+                        return null;
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void recevoir(String topic, byte[] contenu) {
+            if (ProtocoleBinaire.code(contenu) == ProtocoleBinaire.BIENVENUE) {
+                binaireAccepte = true;
+            }
+            for (String message : ProtocoleBinaire.decoderMessages(contenu)) {
+                recus.increment();
+                boite.add(message);
+            }
+        }
+
+        void fermer() {
+            if (transport != null) {
+                transport.close();
+            }
+        }
+    }
+
+    // arguments facultatifs : adresse du broker (ou "local"), joueurs, joueurs par table, durée en secondes,
+    // "binaire" pour négocier le protocole binaire
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String adresse = args.length > 0 ? args[0] : Transport.LOCAL;
+        int joueurs = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int joueursParTable = args.length > 2 ? Integer.parseInt(args[2]) : Publisher.MAX_PLAYERS_PER_TABLE;
+        long secondes = args.length > 3 ? Long.parseLong(args[3]) : 30;
+        boolean binaire = args.length > 4 && args[4].equals("binaire");
+        if (joueursParTable < 1 || joueursParTable > Publisher.MAX_PLAYERS_PER_TABLE) {
+            throw new IllegalArgumentException("Entre 1 et " + Publisher.MAX_PLAYERS_PER_TABLE + " joueurs par table");
+        }
+
+        Publisher serveur = null;
+        // dossier temporaire de l'historique, supprimé à la fin
+        Path historique = null;
+        if (Transport.LOCAL.equals(adresse)) {
+            // avant le chargement de Publisher : une trace par message fausserait la mesure,
+            // et l'historique des milliers de tables n'a pas à rester dans le dossier courant
+            System.setProperty("pocker.traces", System.getProperty("pocker.traces", "false"));
+            if (System.getProperty("pocker.historique") == null) {
+                historique = Files.createTempDirectory("charge");
+                System.setProperty("pocker.historique", historique.toString());
+            }
+            TableRangs.instance();
+            serveur = new Publisher(adresse, 0, 1);
+        }
+        try {
+            new GenerateurCharge(adresse, binaire).executer(joueurs, joueursParTable, secondes);
+        } finally {
+            if (serveur != null) {
+                serveur.close();
+            }
+            if (historique != null) {
+                supprimer(historique);
+            }
+        }
+    }
+
+    private static void supprimer(Path dossier) {
+        try (Stream<Path> chemins = Files.walk(dossier)) {
+            for (Path chemin : chemins.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(chemin);
+            }
+        } catch (IOException e) {
+            System.err.println("Impossible de supprimer " + dossier + " : " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package edu.info0502.pocker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histogramme de durées (ou de toute valeur positive) à la manière de HdrHistogram : les valeurs
+// inférieures à 2^PRECISION sont comptées exactement, au-delà chaque puissance de deux est découpée
+// en 2^PRECISION cases, soit une erreur relative inférieure à 1 %. Mémoire fixe (VALEUR_MAX comprise),
+// enregistrement sans verrou ni allocation, depuis n'importe quel fil.
+final class Histogramme {
+
+    static final int PRECISION = 7;
+    private static final int SOUS_CASES = 1 << PRECISION;
+    // au-delà (environ 2 h 30 en nanosecondes), les valeurs sont ramenées à cette borne
+    static final long VALEUR_MAX = (1L << 43) - 1;
+    private static final int NOMBRE_CASES = indice(VALEUR_MAX) + 1;
+
+    private final AtomicLongArray cases = new AtomicLongArray(NOMBRE_CASES);
+    private final LongAdder nombre = new LongAdder();
+    private final LongAdder somme = new LongAdder();
+    private final LongAccumulator maximum = new LongAccumulator(Math::max, 0);
+
+    void enregistrer(long valeur) {
+        long bornee = Math.min(Math.max(valeur, 0), VALEUR_MAX);
+        cases.incrementAndGet(indice(bornee));
+        nombre.increment();
+        somme.add(bornee);
+        maximum.accumulate(bornee);
+    }
+
+    // durée écoulée depuis debut (System.nanoTime)
+    void enregistrerDepuis(long debut) {
+        enregistrer(System.nanoTime() - debut);
+    }
+
+    long getNombre() {
+        return nombre.sum();
+    }
+
+    long getMaximum() {
+        return maximum.get();
+    }
+
+    double getMoyenne() {
+        long total = nombre.sum();
+        return total == 0 ? 0 : (double) somme.sum() / total;
+    }
+
+    // plus petite valeur (à la précision près) telle que centile % des valeurs lui sont inférieures ou égales
+    long getCentile(double centile) {
+        long total = 0;
+        long[] copie = new long[NOMBRE_CASES];
+        for (int i = 0; i < NOMBRE_CASES; i++) {
+            copie[i] = cases.get(i);
+            total += copie[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rang = Math.max(1, (long) Math.ceil(centile / 100 * total));
+        long cumul = 0;
+        for (int i = 0; i < NOMBRE_CASES; i++) {
+            cumul += copie[i];
+            if (cumul >= rang) {
+                return Math.min(plusGrandeValeur(i), maximum.get());
+            }
+        }
+        return maximum.get();
+    }
+
+    void ajouter(Histogramme autre) {
+        for (int i = 0; i < NOMBRE_CASES; i++) {
+            long compte = autre.cases.get(i);
+            if (compte != 0) {
+                cases.addAndGet(i, compte);
+            }
+        }
+        nombre.add(autre.nombre.sum());
+        somme.add(autre.somme.sum());
+        maximum.accumulate(autre.maximum.get());
+    }
+
+    void reinitialiser() {
+        for (int i = 0; i < NOMBRE_CASES; i++) {
+            cases.set(i, 0);
+        }
+        nombre.reset();
+        somme.reset();
+        maximum.reset();
+    }
+
+    // résumé d'un histogramme de nanosecondes, en millisecondes
+    String resumer() {
+        return String.format("n=%d moyenne=%.3f ms p50=%.3f ms p99=%.3f ms p99.9=%.3f ms max=%.3f ms",
+                getNombre(), enMillis(getMoyenne()), enMillis(getCentile(50)), enMillis(getCentile(99)),
+                enMillis(getCentile(99.9)), enMillis(getMaximum()));
+    }
+
+    private static double enMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    static int indice(long valeur) {
+        if (valeur < SOUS_CASES) {
+            return (int) valeur;
+        }
+        int decalage = 63 - Long.numberOfLeadingZeros(valeur) - PRECISION;
+        return (decalage + 1) * SOUS_CASES + (int) (valeur >>> decalage) - SOUS_CASES;
+    }
+
+    // plus grande valeur rangée dans la case
+    static long plusGrandeValeur(int indice) {
+        if (indice < SOUS_CASES) {
+            return indice;
+        }
+        int decalage = indice / SOUS_CASES - 1;
+        long bas = (long) (SOUS_CASES + indice % SOUS_CASES) << decalage;
+        return bas + (1L << decalage) - 1;
+    }
+}
@@ -0,0 +1,122 @@
+package edu.info0502.pocker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Une donne terminée telle qu'elle est gardée dans l'historique (voir JournalHistorique) :
+// joueurs par identifiant, cartes par indice (Carte.getIndice) et gagnants en masque de places.
+final class HistoriqueDonne {
+    private final long id;
+    private final long horodatage;
+    private final Variante variante;
+    private final int[] joueurs;
+    // cartes privées de chaque place à la suite, variante.getCartesPrivees() par joueur
+    private final byte[] cartesPrivees;
+    private final byte[] tableau;
+    private final int gagnants;
+
+    HistoriqueDonne(long id, long horodatage, Variante variante, int[] joueurs, byte[] cartesPrivees,
+            byte[] tableau, int gagnants) {
+        if (joueurs.length > CodecHistorique.MAX_JOUEURS || tableau.length > 5
+                || cartesPrivees.length != joueurs.length * variante.getCartesPrivees()) {
+            throw new IllegalArgumentException("Donne invalide");
+        }
+        this.id = id;
+        this.horodatage = horodatage;
+        this.variante = variante;
+        this.joueurs = joueurs;
+        this.cartesPrivees = cartesPrivees;
+        this.tableau = tableau;
+        this.gagnants = gagnants;
+    }
+
+    // état final d'une partie ; identifiants[i] est l'identifiant du joueur de la place i
+    static HistoriqueDonne depuis(long id, long horodatage, PokerHoldem partie, int[] identifiants) {
+        List<String> noms = partie.getNomsJoueurs();
+        Variante variante = partie.getVariante();
+        Abattage abattage = partie.abattage();
+        byte[] privees = new byte[noms.size() * variante.getCartesPrivees()];
+        int gagnants = 0;
+        int k = 0;
+        for (int place = 0; place < noms.size(); place++) {
+            for (Carte carte : partie.getJoueurParNom(noms.get(place)).getCartesPrivees()) {
+                privees[k++] = (byte) carte.getIndice();
+            }
+            if (abattage.estGagnant(noms.get(place))) {
+                gagnants |= 1 << place;
+            }
+        }
+        List<Carte> communes = partie.getCartesCommunes();
+        byte[] tableau = new byte[communes.size()];
+        for (int i = 0; i < tableau.length; i++) {
+            tableau[i] = (byte) communes.get(i).getIndice();
+        }
+        return new HistoriqueDonne(id, horodatage, variante, identifiants.clone(), privees, tableau, gagnants);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getHorodatage() {
+        return horodatage;
+    }
+
+    public Variante getVariante() {
+        return variante;
+    }
+
+    public int getNombreJoueurs() {
+        return joueurs.length;
+    }
+
+    public int getJoueur(int place) {
+        return joueurs[place];
+    }
+
+    public List<Carte> getCartesPrivees(int place) {
+        List<Carte> cartes = new ArrayList<>();
+        int n = variante.getCartesPrivees();
+        for (int i = place * n; i < (place + 1) * n; i++) {
+            cartes.add(Carte.parIndice(cartesPrivees[i]));
+        }
+        return cartes;
+    }
+
+    public List<Carte> getTableau() {
+        List<Carte> cartes = new ArrayList<>();
+        for (byte indice : tableau) {
+            cartes.add(Carte.parIndice(indice));
+        }
+        return cartes;
+    }
+
+    public boolean estGagnant(int place) {
+        return (gagnants & (1 << place)) != 0;
+    }
+
+    int getMasqueGagnants() {
+        return gagnants;
+    }
+
+    byte[] indicesPrivees() {
+        return cartesPrivees;
+    }
+
+    byte[] indicesTableau() {
+        return tableau;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texte = new StringBuilder("Donne ").append(id).append(" (").append(variante).append(") ");
+        for (int place = 0; place < joueurs.length; place++) {
+            texte.append("#").append(joueurs[place]).append(getCartesPrivees(place));
+            if (estGagnant(place)) {
+                texte.append("*");
+            }
+            texte.append(" ");
+        }
+        return texte.append("tableau ").append(getTableau()).toString();
+    }
+}
@@ -0,0 +1,53 @@
+package edu.info0502.pocker;
+
+// Parcours des combinaisons de k indices parmi n dans l'ordre colexicographique (voir Combinaisons),
+// sans allocation : chaque combinaison est recopiée dans un tableau fourni par l'appelant.
+// Un même itérateur peut être réutilisé après reinitialiser().
+final class IterateurCombinaisons {
+    private final int n;
+    private final int k;
+    private final long nombre;
+    private final int[] courante;
+    private long restantes;
+
+    IterateurCombinaisons(int n, int k) {
+        if (k < 0 || k > n || n > Combinaisons.MAX_N || k > Combinaisons.MAX_K) {
+            throw new IllegalArgumentException("Combinaisons de " + k + " parmi " + n + " non prises en charge");
+        }
+        this.n = n;
+        this.k = k;
+        this.nombre = Combinaisons.binomial(n, k);
+        this.courante = new int[k];
+        reinitialiser();
+    }
+
+    void reinitialiser() {
+        restantes = nombre;
+    }
+
+    long nombre() {
+        return nombre;
+    }
+
+    // écrit la combinaison suivante dans indices[0..k) ; false quand toutes ont été parcourues
+    boolean suivante(int[] indices) {
+        if (restantes == 0) {
+            return false;
+        }
+        if (restantes == nombre) {
+            for (int i = 0; i < k; i++) {
+                courante[i] = i;
+            }
+        } else {
+            Combinaisons.suivante(courante, k);
+        }
+        restantes--;
+        System.arraycopy(courante, 0, indices, 0, k);
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "C(" + n + ", " + k + ")";
+    }
+}
@@ -0,0 +1,263 @@
+package edu.info0502.pocker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Historique des donnes d'une table, en ajout seul, dans des segments projetés en mémoire
+// (segment-000000.log, segment-000001.log...). Le premier segment est petit (TAILLE_SEGMENT_INITIALE),
+// chaque suivant deux fois plus grand jusqu'à TAILLE_SEGMENT : une table qui ne joue que quelques donnes
+// ne projette que quelques dizaines de Kio. Chaque segment commence par un en-tête :
+// MAGIQUE, VERSION, numéro de sa première donne et horodatage de référence, puis les donnes
+// encodées par CodecHistorique à la suite.
+// Un index creux en mémoire garde la position d'une donne sur PAS_INDEX : lire une donne par son
+// numéro coûte au plus PAS_INDEX - 1 sauts. L'index est reconstruit à l'ouverture.
+// Les écritures passent par l'exécuteur fourni (un seul fil partagé par toutes les tables) :
+// la partie ne fait que construire la donne et ne touche jamais aux fichiers.
+class JournalHistorique implements Closeable {
+
+    static final int TAILLE_SEGMENT_INITIALE = 64 << 10;
+    static final int TAILLE_SEGMENT = 4 << 20;
+    static final int PAS_INDEX = 16;
+
+    private static final int MAGIQUE = 0x48495354; // "HIST"
+    private static final int VERSION = 1;
+    private static final int TAILLE_ENTETE = 24;
+    private static final String FICHIER_JOUEURS = "joueurs.txt";
+
+    private final Path dossier;
+    private final Executor ecrivain;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    // index creux : donne n * PAS_INDEX -> segment, position et horodatage de la donne précédente
+    private int[] segmentsIndex = new int[64];
+    private int[] positionsIndex = new int[64];
+    private long[] precedentsIndex = new long[64];
+    private final Map<String, Integer> identifiants = new HashMap<>();
+    private final List<String> noms = new ArrayList<>();
+
+    private long nombreDonnes;
+    private int position;
+    private long horodatagePrecedent;
+    private boolean ferme;
+
+    JournalHistorique(Path dossier, Executor ecrivain) throws IOException {
+        this.dossier = dossier;
+        this.ecrivain = ecrivain;
+        Files.createDirectories(dossier);
+        chargerJoueurs();
+        for (int numero = 0; Files.exists(fichierSegment(numero)); numero++) {
+            segments.add(projeter(numero, 0));
+        }
+        if (segments.isEmpty()) {
+            nouveauSegment(System.currentTimeMillis());
+        } else {
+            reconstruireIndex();
+        }
+    }
+
+    // numéro du joueur dans ce journal, attribué à sa première donne
+    synchronized int identifiant(String nom) {
+        Integer identifiant = identifiants.get(nom);
+        if (identifiant == null) {
+            identifiant = noms.size();
+            identifiants.put(nom, identifiant);
+            noms.add(nom);
+            String ligne = identifiant + "\t" + nom + System.lineSeparator();
+            ecrivain.execute(() -> ajouterJoueur(ligne));
+        }
+        return identifiant;
+    }
+
+    synchronized String nom(int identifiant) {
+        return identifiant < noms.size() ? noms.get(identifiant) : null;
+    }
+
+    // enregistre l'état final de la partie ; le futur donne le numéro de la donne une fois écrite
+    CompletableFuture<Long> enregistrer(PokerHoldem partie) {
+        List<String> nomsJoueurs = partie.getNomsJoueurs();
+        int[] joueurs = new int[nomsJoueurs.size()];
+        for (int i = 0; i < joueurs.length; i++) {
+            joueurs[i] = identifiant(nomsJoueurs.get(i));
+        }
+        HistoriqueDonne donne = HistoriqueDonne.depuis(-1, System.currentTimeMillis(), partie, joueurs);
+        return CompletableFuture.supplyAsync(() -> ajouter(donne), ecrivain);
+    }
+
+    synchronized long ajouter(HistoriqueDonne donne) {
+        if (ferme) {
+            throw new IllegalStateException("Journal fermé: " + dossier);
+        }
+        MappedByteBuffer segment = segments.get(segments.size() - 1);
+        if (position + CodecHistorique.TAILLE_MAX + 5 > segment.capacity()) {
+            segment = nouveauSegment(donne.getHorodatage());
+        }
+        if (nombreDonnes % PAS_INDEX == 0) {
+            indexer(nombreDonnes / PAS_INDEX, segments.size() - 1, position, horodatagePrecedent);
+        }
+        ByteBuffer tampon = segment.duplicate().position(position);
+        CodecHistorique.encoder(donne, horodatagePrecedent, tampon);
+        position = tampon.position();
+        horodatagePrecedent = donne.getHorodatage();
+        return nombreDonnes++;
+    }
+
+    synchronized long nombreDonnes() {
+        return nombreDonnes;
+    }
+
+    synchronized HistoriqueDonne lire(long id) {
+        if (id < 0 || id >= nombreDonnes) {
+            throw new IllegalArgumentException("Donne inconnue: " + id);
+        }
+        int entree = (int) (id / PAS_INDEX);
+        int segment = segmentsIndex[entree];
+        ByteBuffer tampon = segments.get(segment).duplicate().position(positionsIndex[entree]);
+        long precedent = precedentsIndex[entree];
+        for (long courante = (long) entree * PAS_INDEX; courante < id; courante++) {
+            long horodatage = CodecHistorique.sauter(tampon, precedent);
+            if (horodatage < 0) {
+                // fin du segment : la donne suivante est au début du segment suivant
+                segment++;
+                tampon = debutSegment(segment);
+                precedent = segments.get(segment).getLong(16);
+                horodatage = CodecHistorique.sauter(tampon, precedent);
+            }
+            precedent = horodatage;
+        }
+        HistoriqueDonne donne = CodecHistorique.decoder(tampon, id, precedent);
+        if (donne == null) {
+            segment++;
+            donne = CodecHistorique.decoder(debutSegment(segment), id, segments.get(segment).getLong(16));
+        }
+        return donne;
+    }
+
+    // attend les écritures déjà soumises puis écrit les segments sur le disque
+    CompletableFuture<Void> synchroniser() {
+        return CompletableFuture.runAsync(() -> {
+            synchronized (this) {
+                for (MappedByteBuffer segment : segments) {
+                    segment.force();
+                }
+            }
+        }, ecrivain);
+    }
+
+    @Override
+    public void close() {
+        synchroniser().join();
+        synchronized (this) {
+            ferme = true;
+        }
+    }
+
+    private void reconstruireIndex() {
+        for (int numero = 0; numero < segments.size(); numero++) {
+            MappedByteBuffer segment = segments.get(numero);
+            if (segment.getInt(0) != MAGIQUE || segment.getInt(4) != VERSION
+                    || segment.getLong(8) != nombreDonnes) {
+                throw new IllegalStateException("Segment d'historique invalide: " + fichierSegment(numero));
+            }
+            ByteBuffer tampon = debutSegment(numero);
+            long precedent = segment.getLong(16);
+            while (true) {
+                int debut = tampon.position();
+                long horodatage = CodecHistorique.sauter(tampon, precedent);
+                if (horodatage < 0) {
+                    position = debut;
+                    break;
+                }
+                if (nombreDonnes % PAS_INDEX == 0) {
+                    indexer(nombreDonnes / PAS_INDEX, numero, debut, precedent);
+                }
+                precedent = horodatage;
+                nombreDonnes++;
+            }
+            horodatagePrecedent = precedent;
+        }
+    }
+
+    private void indexer(long entree, int segment, int debut, long precedent) {
+        int i = (int) entree;
+        if (i == segmentsIndex.length) {
+            segmentsIndex = Arrays.copyOf(segmentsIndex, i * 2);
+            positionsIndex = Arrays.copyOf(positionsIndex, i * 2);
+            precedentsIndex = Arrays.copyOf(precedentsIndex, i * 2);
+        }
+        segmentsIndex[i] = segment;
+        positionsIndex[i] = debut;
+        precedentsIndex[i] = precedent;
+    }
+
+    private MappedByteBuffer nouveauSegment(long horodatageReference) {
+        int numero = segments.size();
+        MappedByteBuffer segment;
+        try {
+            segment = projeter(numero, (int) Math.min(TAILLE_SEGMENT, (long) TAILLE_SEGMENT_INITIALE << numero));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de créer le segment " + fichierSegment(numero), e);
+        }
+        segment.putInt(0, MAGIQUE);
+        segment.putInt(4, VERSION);
+        segment.putLong(8, nombreDonnes);
+        segment.putLong(16, horodatageReference);
+        segments.add(segment);
+        position = TAILLE_ENTETE;
+        horodatagePrecedent = horodatageReference;
+        return segment;
+    }
+
+    private ByteBuffer debutSegment(int numero) {
+        return segments.get(numero).duplicate().position(TAILLE_ENTETE);
+    }
+
+    // taille 0 : segment existant, projeté sur toute sa longueur
+    private MappedByteBuffer projeter(int numero, int taille) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichierSegment(numero),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return canal.map(FileChannel.MapMode.READ_WRITE, 0, taille > 0 ? taille : canal.size());
+        }
+    }
+
+    private Path fichierSegment(int numero) {
+        return dossier.resolve(String.format("segment-%06d.log", numero));
+    }
+
+    private void chargerJoueurs() throws IOException {
+        Path fichier = dossier.resolve(FICHIER_JOUEURS);
+        if (!Files.exists(fichier)) {
+            return;
+        }
+        for (String ligne : Files.readAllLines(fichier, StandardCharsets.UTF_8)) {
+            int tabulation = ligne.indexOf('\t');
+            if (tabulation > 0) {
+                String nom = ligne.substring(tabulation + 1);
+                identifiants.put(nom, noms.size());
+                noms.add(nom);
+            }
+        }
+    }
+
+    private void ajouterJoueur(String ligne) {
+        try {
+            Files.writeString(dossier.resolve(FICHIER_JOUEURS), ligne, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'écriture des joueurs de " + dossier + " : " + e.getMessage());
+        }
+    }
+}
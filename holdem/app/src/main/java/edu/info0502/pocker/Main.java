@@ -1,7 +1,6 @@
 package edu.info0502.pocker;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.io.Serializable;
 
@@ -35,6 +34,8 @@ class Main implements Serializable {
     private static final long serialVersionUID = 1L;
     private List<Carte> cartes;
     private static final int TAILLE_MAIN = 5;
+    // rang (combinaison et valeurs de départage, voir EvaluateurMain), calculé à la cinquième carte
+    private int rang;
 
     public static int getTailleMain() {
         return TAILLE_MAIN;
@@ -43,11 +44,25 @@ class Main implements Serializable {
         cartes = new ArrayList<>();
     }
 
+    // vue sur un résultat déjà évalué (meilleure main d'un joueur)
+    Main(List<Carte> cartes, int rang) {
+        this.cartes = new ArrayList<>(cartes);
+        this.rang = rang;
+    }
+
+    int getRang() {
+        verifierPleine();
+        return rang;
+    }
+
     public void ajouterCarte(Carte carte) {
         if (cartes.size() >= TAILLE_MAIN) {
             throw new IllegalStateException("La main est déjà pleine");
         }
         cartes.add(carte);
+        if (cartes.size() == TAILLE_MAIN) {
+            rang = calculerRang();
+        }
     }
 
     // New method to add multiple cards to the hand
@@ -62,126 +77,30 @@ class Main implements Serializable {
     }
     // evaluer une main pour vérifier les combinaisons
     public CombinaisonPoker evaluerMain() {
+        verifierPleine();
+        return EvaluateurMain.combinaison(rang);
+    }
+
+    private void verifierPleine() {
         if (cartes.size() != TAILLE_MAIN) {
             // la main n'est pas ecnore pleine
             throw new IllegalStateException("La main doit contenir exactement 5 cartes");
         }
-
-        List<Carte> cartesTriees = new ArrayList<>(cartes);
-        Collections.sort(cartesTriees);
-
-        if (estQuinteFlushRoyale(cartesTriees)) return CombinaisonPoker.QUINTE_FLUSH_ROYALE;
-        if (estQuinteFlush(cartesTriees)) return CombinaisonPoker.QUINTE_FLUSH;
-        if (estCarre(cartesTriees)) return CombinaisonPoker.CARRE;
-        if (estFull(cartesTriees)) return CombinaisonPoker.FULL;
-        if (estCouleur(cartesTriees)) return CombinaisonPoker.COULEUR;
-        if (estQuinte(cartesTriees)) return CombinaisonPoker.QUINTE;
-        if (estBrelan(cartesTriees)) return CombinaisonPoker.BRELAN;
-        if (estDeuxPaires(cartesTriees)) return CombinaisonPoker.DEUX_PAIRES;
-        if (estPaire(cartesTriees)) return CombinaisonPoker.PAIRE;
-        return CombinaisonPoker.CARTE_HAUTE; // si aucune autre combinaison est valide
-    }
-
-
-    // vérifier un Quint Flush Royale
-    private boolean estQuinteFlushRoyale(List<Carte> cartesTriees) {
-        return estQuinteFlush(cartesTriees) && 
-               cartesTriees.get(4).getValeur() == Valeur.AS;
-    }
-
-    // vérifier un Quint Flush
-    private boolean estQuinteFlush(List<Carte> cartesTriees) {
-        return estQuinte(cartesTriees) && estCouleur(cartesTriees);
-    }
-
-    // vérifier un Carré
-    private boolean estCarre(List<Carte> cartesTriees) {
-        return (compterOccurrences(cartesTriees, 0) == 4) || 
-               (compterOccurrences(cartesTriees, 1) == 4);
-    }
-
-    // vérifier un Full
-    private boolean estFull(List<Carte> cartesTriees) {
-        boolean brelanDebut = compterOccurrences(cartesTriees, 0) == 3;
-        boolean brelanFin = compterOccurrences(cartesTriees, 2) == 3;
-        return (brelanDebut && compterOccurrences(cartesTriees, 3) == 2) || 
-               (brelanFin && compterOccurrences(cartesTriees, 0) == 2);
-    }
-
-    // vérifier un Couleur
-    private boolean estCouleur(List<Carte> cartesTriees) {
-        Couleur couleur = cartesTriees.get(0).getCouleur();
-        return cartesTriees.stream().allMatch(carte -> carte.getCouleur() == couleur);
-    }
-
-    // vérifier un Quint
-    private boolean estQuinte(List<Carte> cartesTriees) {
-        for (int i = 0; i < cartesTriees.size() - 1; i++) {
-            if (cartesTriees.get(i + 1).getValeur().getValeur() - 
-                cartesTriees.get(i).getValeur().getValeur() != 1) {
-                return false;
-            }
-        }
-        return true;
-    }
-
-
-    // vérifier un Brelan
-    private boolean estBrelan(List<Carte> cartesTriees) {
-        return cartesTriees.stream()
-                .anyMatch(carte -> compterOccurrences(cartesTriees, 
-                         cartesTriees.indexOf(carte)) == 3);
     }
 
-    // vérifier Deux paires
-    private boolean estDeuxPaires(List<Carte> cartesTriees) {
-        int nombrePaires = 0;
-        for (int i = 0; i < cartesTriees.size(); i++) {
-            if (compterOccurrences(cartesTriees, i) == 2) {
-                nombrePaires++;
-                i++; // Sauter la deuxième carte de la paire
-            }
+    // les tables de rangs sont utilisées si elles ont été chargées, sinon l'évaluateur sur masque
+    private int calculerRang() {
+        long masque = 0L;
+        for (Carte carte : cartes) {
+            masque |= carte.getMasque();
         }
-        return nombrePaires == 2;
-    }
-
-    // vérifier une Paire
-    private boolean estPaire(List<Carte> cartesTriees) {
-        return cartesTriees.stream()
-                .anyMatch(carte -> compterOccurrences(cartesTriees, 
-                         cartesTriees.indexOf(carte)) == 2);
+        TableRangs table = TableRangs.instance();
+        return table != null ? table.evaluer(masque) : EvaluateurMain.evaluer(masque);
     }
 
-
-
-    private int compterOccurrences(List<Carte> cartes, int index) {
-        Valeur valeur = cartes.get(index).getValeur();
-        return (int) cartes.stream()
-                .filter(carte -> carte.getValeur() == valeur)
-                .count();
-    }
-
-
+    // les valeurs de départage font partie du rang : une seule comparaison d'entiers
     public int comparerAvec(Main autreMain) {
-        CombinaisonPoker combinaison1 = this.evaluerMain();
-        CombinaisonPoker combinaison2 = autreMain.evaluerMain();
-
-        if (combinaison1 != combinaison2) {
-            return combinaison1.getValeur() - combinaison2.getValeur();
-        }
-
-        // si les deux main on la même combinaison, comparer les valeurs des cartes
-        List<Carte> cartes1 = new ArrayList<>(this.cartes);
-        List<Carte> cartes2 = new ArrayList<>(autreMain.cartes);
-        Collections.sort(cartes1, Collections.reverseOrder());
-        Collections.sort(cartes2, Collections.reverseOrder());
-
-        for (int i = 0; i < TAILLE_MAIN; i++) {
-            int comp = cartes1.get(i).compareTo(cartes2.get(i));
-            if (comp != 0) return comp;
-        }
-
-        return 0;
+        return Integer.compare(this.getRang(), autreMain.getRang());
     }
 
     @Override
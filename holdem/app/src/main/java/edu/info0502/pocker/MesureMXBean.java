@@ -0,0 +1,21 @@
+package edu.info0502.pocker;
+
+// Vue JMX d'une durée mesurée par le serveur (une commande, les publications, l'abattage), en millisecondes.
+public interface MesureMXBean {
+
+    long getNombre();
+
+    long getEchecs();
+
+    double getMoyenneMs();
+
+    double getP50Ms();
+
+    double getP99Ms();
+
+    double getP999Ms();
+
+    double getMaxMs();
+
+    void reinitialiser();
+}
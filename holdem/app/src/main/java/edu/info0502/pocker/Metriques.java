@@ -0,0 +1,263 @@
+package edu.info0502.pocker;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Métriques d'un serveur (un shard), exposées en JMX sous edu.info0502.pocker (jconsole, VisualVM) :
+//  - type=Serveur : tables et joueurs actifs, donnes et donnes/s, commandes invalides, messages en file ;
+//  - type=Commande,nom=... : durée de chaque commande, de sa réception à la fin de son traitement ;
+//  - type=Publication : durée des publications du transport (EnvoiMqtt) et échecs ;
+//  - type=Abattage : durée de l'évaluation des mains à l'abattage.
+// Côté jeu, une mesure ne coûte que deux System.nanoTime() et quelques incréments sans verrou
+// (LongAdder, Histogramme) ; centiles et débits ne sont calculés qu'à la lecture.
+// -Dpocker.metriques=fichier ajoute en plus un relevé au fichier toutes les pocker.metriques.periode secondes.
+final class Metriques implements MetriquesMXBean {
+
+    static final String DOMAINE = "edu.info0502.pocker";
+    private static final String FICHIER = System.getProperty("pocker.metriques");
+    private static final long PERIODE_S = Long.getLong("pocker.metriques.periode", 10);
+
+    private final int shard;
+    private final IntSupplier tables;
+    private final IntSupplier joueurs;
+    private final IntSupplier enAttente;
+    private final Map<TypeCommande, Mesure> commandes = new EnumMap<>(TypeCommande.class);
+    private final Mesure publications = new Mesure();
+    private final Mesure abattages = new Mesure();
+    private final LongAdder donnes = new LongAdder();
+    private final LongAdder commandesInvalides = new LongAdder();
+    // modifiés par le fil d'échantillonnage uniquement
+    private volatile double donnesParSeconde;
+    private long donnesPrecedentes;
+    private long secondes;
+    private final List<ObjectName> noms = new ArrayList<>();
+    private final ScheduledExecutorService echantillonnage = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "metriques");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // tables, joueurs et messages en attente sont lus à la demande, pas tenus à jour par le jeu
+    Metriques(int shard, IntSupplier tables, IntSupplier joueurs, IntSupplier enAttente) {
+        this.shard = shard;
+        this.tables = tables;
+        this.joueurs = joueurs;
+        this.enAttente = enAttente;
+        for (TypeCommande type : TypeCommande.values()) {
+            commandes.put(type, new Mesure());
+        }
+        enregistrer();
+        echantillonnage.scheduleAtFixedRate(this::echantillonner, 1, 1, TimeUnit.SECONDS);
+    }
+
+    // le traitement mesuré, à exécuter là où la commande l'aurait été (acteur, fil virtuel) ;
+    // debut est l'instant de réception, l'attente dans la file de l'acteur est donc comptée
+    Runnable chronometrer(TypeCommande type, long debut, Runnable traitement) {
+        Mesure mesure = commandes.get(type);
+        return () -> {
+            try {
+                traitement.run();
+            } catch (RuntimeException e) {
+                mesure.echouer();
+                throw e;
+            } finally {
+                mesure.enregistrerDepuis(debut);
+            }
+        };
+    }
+
+    Mesure getPublications() {
+        return publications;
+    }
+
+    Mesure getAbattages() {
+        return abattages;
+    }
+
+    void donneTerminee() {
+        donnes.increment();
+    }
+
+    void commandeInvalide() {
+        commandesInvalides.increment();
+    }
+
+    @Override
+    public int getTablesActives() {
+        return tables.getAsInt();
+    }
+
+    @Override
+    public int getJoueursActifs() {
+        return joueurs.getAsInt();
+    }
+
+    @Override
+    public long getDonnes() {
+        return donnes.sum();
+    }
+
+    @Override
+    public double getDonnesParSeconde() {
+        return donnesParSeconde;
+    }
+
+    @Override
+    public long getCommandesInvalides() {
+        return commandesInvalides.sum();
+    }
+
+    @Override
+    public int getMessagesEnAttente() {
+        return enAttente.getAsInt();
+    }
+
+    void fermer() {
+        echantillonnage.shutdown();
+        MBeanServer serveur = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName nom : noms) {
+            try {
+                serveur.unregisterMBean(nom);
+            } catch (JMException e) {
+                // déjà retiré
+            }
+        }
+    }
+
+    // un serveur relancé dans la même JVM (tests, GenerateurCharge) remplace les MBeans de son shard
+    private void enregistrer() {
+        MBeanServer serveur = ManagementFactory.getPlatformMBeanServer();
+        try {
+            enregistrer(serveur, new ObjectName(DOMAINE + ":type=Serveur,shard=" + shard), this);
+            for (Map.Entry<TypeCommande, Mesure> commande : commandes.entrySet()) {
+                enregistrer(serveur, new ObjectName(DOMAINE + ":type=Commande,shard=" + shard
+                        + ",nom=" + commande.getKey()), commande.getValue());
+            }
+            enregistrer(serveur, new ObjectName(DOMAINE + ":type=Publication,shard=" + shard), publications);
+            enregistrer(serveur, new ObjectName(DOMAINE + ":type=Abattage,shard=" + shard), abattages);
+        } catch (JMException e) {
+            System.err.println("Métriques JMX indisponibles : " + e.getMessage());
+        }
+    }
+
+    private void enregistrer(MBeanServer serveur, ObjectName nom, Object mbean) throws JMException {
+        if (serveur.isRegistered(nom)) {
+            serveur.unregisterMBean(nom);
+        }
+        serveur.registerMBean(mbean, nom);
+        noms.add(nom);
+    }
+
+    private void echantillonner() {
+        long total = donnes.sum();
+        donnesParSeconde = total - donnesPrecedentes;
+        donnesPrecedentes = total;
+        if (FICHIER != null && ++secondes % PERIODE_S == 0) {
+            ecrire(Paths.get(FICHIER));
+        }
+    }
+
+    private void ecrire(Path fichier) {
+        StringBuilder releve = new StringBuilder();
+        releve.append(Instant.now()).append(" shard=").append(shard)
+                .append(" tables=").append(getTablesActives())
+                .append(" joueurs=").append(getJoueursActifs())
+                .append(" donnes=").append(getDonnes())
+                .append(String.format(" donnes/s=%.0f", getDonnesParSeconde()))
+                .append(" invalides=").append(getCommandesInvalides())
+                .append(" enAttente=").append(getMessagesEnAttente()).append('\n');
+        commandes.forEach((type, mesure) -> {
+            if (mesure.getNombre() > 0) {
+                releve.append("  ").append(type).append(' ').append(mesure).append('\n');
+            }
+        });
+        releve.append("  publication ").append(publications).append('\n');
+        releve.append("  abattage ").append(abattages).append('\n');
+        try {
+            Files.writeString(fichier, releve, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'écriture des métriques : " + e.getMessage());
+        }
+    }
+
+    static final class Mesure implements MesureMXBean {
+        private final Histogramme durees = new Histogramme();
+        private final LongAdder echecs = new LongAdder();
+
+        void enregistrerDepuis(long debut) {
+            durees.enregistrerDepuis(debut);
+        }
+
+        void echouer() {
+            echecs.increment();
+        }
+
+        @Override
+        public long getNombre() {
+            return durees.getNombre();
+        }
+
+        @Override
+        public long getEchecs() {
+            return echecs.sum();
+        }
+
+        @Override
+        public double getMoyenneMs() {
+            return enMillis(durees.getMoyenne());
+        }
+
+        @Override
+        public double getP50Ms() {
+            return enMillis(durees.getCentile(50));
+        }
+
+        @Override
+        public double getP99Ms() {
+            return enMillis(durees.getCentile(99));
+        }
+
+        @Override
+        public double getP999Ms() {
+            return enMillis(durees.getCentile(99.9));
+        }
+
+        @Override
+        public double getMaxMs() {
+            return enMillis(durees.getMaximum());
+        }
+
+        @Override
+        public void reinitialiser() {
+            durees.reinitialiser();
+            echecs.reset();
+        }
+
+        @Override
+        public String toString() {
+            return durees.resumer() + ", échecs=" + echecs.sum();
+        }
+
+        private static double enMillis(double nanos) {
+            return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package edu.info0502.pocker;
+
+// Vue JMX de l'état d'un serveur (un shard) ; les durées sont dans les MesureMXBean du même shard.
+public interface MetriquesMXBean {
+
+    int getTablesActives();
+
+    int getJoueursActifs();
+
+    long getDonnes();
+
+    // sur la dernière seconde écoulée
+    double getDonnesParSeconde();
+
+    long getCommandesInvalides();
+
+    int getMessagesEnAttente();
+}
@@ -13,7 +13,7 @@ class PaquetDeCartes {
         cartes = new ArrayList<>();
         for (Couleur couleur : Couleur.values()) {
             for (Valeur valeur : Valeur.values()) {
-                cartes.add(new Carte(couleur, valeur));
+                cartes.add(Carte.valueOf(couleur, valeur));
             }
         }
     }
@@ -0,0 +1,247 @@
+package edu.info0502.pocker;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Plage de mains de départ en notation usuelle, éléments séparés par des virgules :
+// paires "QQ", "QQ+", "QQ-88", mains "AKs", "AKo", "AK", "A9s+", "A5s-A2s", combinaisons précises
+// "AhKh" et pourcentages "top 20%" (classes classées par EquitePreflop). Chaque élément peut avoir
+// un poids, par exemple "AKo:0.5". Valeurs 23456789TJQKA, couleurs h (coeur), d (carreau), s (pique), c (trèfle).
+// Chaque combinaison est gardée sous forme de masque de deux cartes.
+final class PlageMains {
+    static final int NOMBRE_COMBINAISONS = 1326;
+
+    private static final String VALEURS = "23456789TJQKA";
+    private static final String COULEURS = "hdsc";
+
+    private final String texte;
+    private final long[] combinaisons;
+    private final double[] poids;
+
+    private PlageMains(String texte, Map<Long, Double> combinaisons) {
+        this.texte = texte;
+        this.combinaisons = new long[combinaisons.size()];
+        this.poids = new double[combinaisons.size()];
+        int i = 0;
+        for (Map.Entry<Long, Double> entree : combinaisons.entrySet()) {
+            this.combinaisons[i] = entree.getKey();
+            this.poids[i] = entree.getValue();
+            i++;
+        }
+    }
+
+    static PlageMains parser(String texte) {
+        Map<Long, Double> combinaisons = new LinkedHashMap<>();
+        for (String element : texte.split(",")) {
+            element = element.trim();
+            if (element.isEmpty()) {
+                continue;
+            }
+            double poids = 1.0;
+            int deuxPoints = element.indexOf(':');
+            if (deuxPoints >= 0) {
+                poids = lirePoids(element, element.substring(deuxPoints + 1).trim());
+                element = element.substring(0, deuxPoints).trim();
+            }
+            ajouterElement(combinaisons, element, poids);
+        }
+        if (combinaisons.isEmpty()) {
+            throw new IllegalArgumentException("Plage vide: " + texte);
+        }
+        return new PlageMains(texte.trim(), combinaisons);
+    }
+
+    // plage réduite à deux cartes connues
+    static PlageMains deMain(Carte carte1, Carte carte2) {
+        if (carte1 == carte2) {
+            throw new IllegalArgumentException("Carte en double: " + carte1);
+        }
+        Map<Long, Double> combinaisons = new LinkedHashMap<>();
+        combinaisons.put(carte1.getMasque() | carte2.getMasque(), 1.0);
+        return new PlageMains(symbole(carte1) + symbole(carte2), combinaisons);
+    }
+
+    // cartes écrites à la suite ou séparées par des espaces, par exemple "AhKd2c"
+    static List<Carte> parserCartes(String texte) {
+        String cartes = texte.replaceAll("\\s", "");
+        if (cartes.length() % 2 != 0) {
+            throw new IllegalArgumentException("Cartes invalides: " + texte);
+        }
+        List<Carte> resultat = new ArrayList<>();
+        for (int i = 0; i < cartes.length(); i += 2) {
+            resultat.add(carte(cartes.charAt(i), cartes.charAt(i + 1), texte));
+        }
+        return resultat;
+    }
+
+    int taille() {
+        return combinaisons.length;
+    }
+
+    long combinaison(int i) {
+        return combinaisons[i];
+    }
+
+    double poids(int i) {
+        return poids[i];
+    }
+
+    // la même plage sans les combinaisons qui utilisent une carte de masqueMortes
+    PlageMains sans(long masqueMortes) {
+        Map<Long, Double> restantes = new LinkedHashMap<>();
+        for (int i = 0; i < combinaisons.length; i++) {
+            if ((combinaisons[i] & masqueMortes) == 0) {
+                restantes.put(combinaisons[i], poids[i]);
+            }
+        }
+        return new PlageMains(texte, restantes);
+    }
+
+    @Override
+    public String toString() {
+        return texte;
+    }
+
+    private static void ajouterElement(Map<Long, Double> combinaisons, String element, double poids) {
+        String minuscule = element.toLowerCase();
+        if (minuscule.endsWith("%")) {
+            String nombre = minuscule.startsWith("top") ? minuscule.substring(3) : minuscule;
+            ajouterPourcentage(combinaisons, lirePoids(element, nombre.substring(0, nombre.length() - 1).trim()) / 100,
+                    poids);
+            return;
+        }
+        if (element.length() == 4 && COULEURS.indexOf(Character.toLowerCase(element.charAt(1))) >= 0) {
+            Carte carte1 = carte(element.charAt(0), element.charAt(1), element);
+            Carte carte2 = carte(element.charAt(2), element.charAt(3), element);
+            if (carte1 == carte2) {
+                throw new IllegalArgumentException("Carte en double: " + element);
+            }
+            combinaisons.put(carte1.getMasque() | carte2.getMasque(), poids);
+            return;
+        }
+
+        int tiret = element.indexOf('-');
+        boolean plus = element.endsWith("+");
+        String debut = tiret >= 0 ? element.substring(0, tiret) : plus ? element.substring(0, element.length() - 1) : element;
+        int[] main = lireClasse(debut, element);
+        int haute = main[0];
+        int basse = main[1];
+        char type = (char) main[2];
+
+        if (tiret >= 0) {
+            int[] fin = lireClasse(element.substring(tiret + 1), element);
+            boolean paires = haute == basse && fin[0] == fin[1];
+            if (fin[2] != type || (!paires && fin[0] != haute)) {
+                throw new IllegalArgumentException("Intervalle invalide: " + element);
+            }
+            int de = paires ? Math.min(haute, fin[0]) : Math.min(basse, fin[1]);
+            int a = paires ? Math.max(haute, fin[0]) : Math.max(basse, fin[1]);
+            for (int v = de; v <= a; v++) {
+                ajouterClasse(combinaisons, paires ? v : haute, v, type, poids);
+            }
+        } else if (plus) {
+            // QQ+ : QQ à AA ; A9s+ : A9s à AKs
+            int fin = haute == basse ? VALEURS.length() - 1 : haute - 1;
+            for (int v = basse; v <= fin; v++) {
+                ajouterClasse(combinaisons, haute == basse ? v : haute, v, type, poids);
+            }
+        } else {
+            ajouterClasse(combinaisons, haute, basse, type, poids);
+        }
+    }
+
+    // {valeur haute, valeur basse, type} avec type 's' (assortie), 'o' (dépareillée) ou ' ' (les deux)
+    private static int[] lireClasse(String classe, String element) {
+        if (classe.length() < 2 || classe.length() > 3) {
+            throw new IllegalArgumentException("Élément de plage invalide: " + element);
+        }
+        int v1 = valeur(classe.charAt(0), element);
+        int v2 = valeur(classe.charAt(1), element);
+        char type = classe.length() == 3 ? Character.toLowerCase(classe.charAt(2)) : ' ';
+        if ((type != 's' && type != 'o' && type != ' ') || (v1 == v2 && type != ' ')) {
+            throw new IllegalArgumentException("Élément de plage invalide: " + element);
+        }
+        return new int[] {Math.max(v1, v2), Math.min(v1, v2), type};
+    }
+
+    private static void ajouterClasse(Map<Long, Double> combinaisons, int haute, int basse, char type, double poids) {
+        Valeur[] valeurs = Valeur.values();
+        Couleur[] couleurs = Couleur.values();
+        for (Couleur c1 : couleurs) {
+            for (Couleur c2 : couleurs) {
+                if (haute == basse ? c2.ordinal() <= c1.ordinal()
+                        : (type == 's' && c1 != c2) || (type == 'o' && c1 == c2)) {
+                    continue;
+                }
+                long masque = Carte.valueOf(c1, valeurs[haute]).getMasque() | Carte.valueOf(c2, valeurs[basse]).getMasque();
+                combinaisons.put(masque, poids);
+            }
+        }
+    }
+
+    // les classes les plus fortes jusqu'à la proportion demandée des 1326 combinaisons
+    private static void ajouterPourcentage(Map<Long, Double> combinaisons, double proportion, double poids) {
+        double cible = proportion * NOMBRE_COMBINAISONS;
+        int total = 0;
+        for (int classe : EquitePreflop.classesParEquite()) {
+            if (total >= cible) {
+                break;
+            }
+            int ligne = classe / 13;
+            int colonne = classe % 13;
+            if (ligne == colonne) {
+                ajouterClasse(combinaisons, ligne, ligne, ' ', poids);
+                total += 6;
+            } else if (ligne > colonne) {
+                ajouterClasse(combinaisons, ligne, colonne, 's', poids);
+                total += 4;
+            } else {
+                ajouterClasse(combinaisons, colonne, ligne, 'o', poids);
+                total += 12;
+            }
+        }
+    }
+
+    private static double lirePoids(String element, String nombre) {
+        try {
+            double valeur = Double.parseDouble(nombre);
+            if (!(valeur >= 0) || Double.isInfinite(valeur)) {
+                throw new IllegalArgumentException("Nombre invalide: " + element);
+            }
+            return valeur;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Nombre invalide: " + element);
+        }
+    }
+
+    private static int valeur(char symbole, String element) {
+        int valeur = VALEURS.indexOf(Character.toUpperCase(symbole));
+        if (valeur < 0) {
+            throw new IllegalArgumentException("Valeur invalide '" + symbole + "' dans " + element);
+        }
+        return valeur;
+    }
+
+    private static Carte carte(char valeur, char couleur, String element) {
+        int c = COULEURS.indexOf(Character.toLowerCase(couleur));
+        if (c < 0) {
+            throw new IllegalArgumentException("Couleur invalide '" + couleur + "' dans " + element);
+        }
+        return Carte.valueOf(Couleur.values()[c], Valeur.values()[valeur(valeur, element)]);
+    }
+
+    // inverse de parserCartes
+    static String symboles(List<Carte> cartes) {
+        StringBuilder texte = new StringBuilder();
+        for (Carte carte : cartes) {
+            texte.append(symbole(carte));
+        }
+        return texte.toString();
+    }
+
+    private static String symbole(Carte carte) {
+        return "" + VALEURS.charAt(carte.getValeur().ordinal()) + COULEURS.charAt(carte.getCouleur().ordinal());
+    }
+}
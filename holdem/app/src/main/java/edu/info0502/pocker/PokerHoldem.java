@@ -1,85 +1,176 @@
 package edu.info0502.pocker;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.random.RandomGenerator;
 
 public class PokerHoldem {
 
+    private static final EquiteMonteCarlo EQUITE_MONTE_CARLO = new EquiteMonteCarlo();
+    private static final EnumerateurEquite EQUITE_EXACTE = new EnumerateurEquite();
+
+    private final Variante variante;
     private Talon talon;
     private List<Joueur> joueurs;
     private CartesCommunes cartesCommunes;
+    // résultat de l'abattage, calculé au premier appel puis gardé jusqu'à la prochaine carte
+    private Abattage abattage;
 
     public PokerHoldem(List<String> nomsJoueurs) {
+        this(nomsJoueurs, Variante.HOLDEM, null);
+    }
+
+    // toutes les donnes sont tirées avec ce générateur (null : ThreadLocalRandom)
+    public PokerHoldem(List<String> nomsJoueurs, RandomGenerator aleatoire) {
+        this(nomsJoueurs, Variante.HOLDEM, aleatoire);
+    }
+
+    public PokerHoldem(List<String> nomsJoueurs, Variante variante) {
+        this(nomsJoueurs, variante, null);
+    }
+
+    public PokerHoldem(List<String> nomsJoueurs, Variante variante, RandomGenerator aleatoire) {
         if (nomsJoueurs.size() < 2 || nomsJoueurs.size() > 10) {
             throw new IllegalArgumentException("Le Texas Hold'em nécessite 2 à 10 joueurs");
         }
 
-        talon = new Talon(1);
+        this.variante = variante;
+        talon = new Talon(1, aleatoire);
         joueurs = new ArrayList<>();
         cartesCommunes = new CartesCommunes();
 
       
         for (String nom : nomsJoueurs) {
-            joueurs.add(new Joueur(nom));
+            joueurs.add(new Joueur(nom, variante));
         }
     }
 
     public void demarrerPartie() {
-        talon.melanger();
+        talon.reinitialiser();
         cartesCommunes.reinitialiser();
+        abattage = null;
         distribuerCartesPrivees();
     }
 
     private void distribuerCartesPrivees() {
         for (Joueur joueur : joueurs) {
-            Carte carte1 = talon.tirerCarte();
-            Carte carte2 = talon.tirerCarte();
-            joueur.recevoirCartesPrivees(carte1, carte2);
+            List<Carte> cartes = new ArrayList<>(variante.getCartesPrivees());
+            for (int i = 0; i < variante.getCartesPrivees(); i++) {
+                cartes.add(talon.tirerCarte());
+            }
+            joueur.recevoirCartesPrivees(cartes);
         }
     }
 
     public void distribuerFlop() {
         for (int i = 0; i < 3; i++) {
-            cartesCommunes.ajouterCarte(talon.tirerCarte());
+            ajouterCarteCommune(talon.tirerCarte());
         }
     }
 
     public void distribuerTurn() {
-        cartesCommunes.ajouterCarte(talon.tirerCarte());
+        ajouterCarteCommune(talon.tirerCarte());
     }
 
     public void distribuerRiver() {
-        cartesCommunes.ajouterCarte(talon.tirerCarte());
+        ajouterCarteCommune(talon.tirerCarte());
     }
 
-    public Map<String, String> calculerResultats() {
-        Map<String, String> results = new HashMap<>();
+    // chaque carte commune met aussi à jour l'état d'évaluation de chaque joueur
+    private void ajouterCarteCommune(Carte carte) {
+        cartesCommunes.ajouterCarte(carte);
+        abattage = null;
         for (Joueur joueur : joueurs) {
+            joueur.ajouterCarteCommune(carte);
+        }
+    }
+
+    // combinaison actuelle du joueur, disponible dès le flop
+    public CombinaisonPoker getCombinaisonActuelle(String nom) {
+        return EvaluateurMain.combinaison(getJoueurParNom(nom).getRangActuel());
+    }
+
+    // chaque joueur n'est évalué qu'une fois, quel que soit le nombre d'appels
+    public Abattage abattage() {
+        if (abattage == null) {
+            abattage = calculerAbattage();
+        }
+        return abattage;
+    }
+
+    Abattage calculerAbattage() {
+        List<String> noms = new ArrayList<>();
+        int[] rangs = new int[joueurs.size()];
+        for (int i = 0; i < rangs.length; i++) {
+            Joueur joueur = joueurs.get(i);
             joueur.evaluerMeilleureMain(cartesCommunes);
-            String mainInfo = joueur.getMeilleureMain().evaluerMain().toString();
-            results.put(joueur.getNom(), mainInfo);
+            noms.add(joueur.getNom());
+            rangs[i] = joueur.getRang();
         }
-        return results;
+        return new Abattage(noms, rangs);
+    }
+
+    public Map<String, String> calculerResultats() {
+        return abattage().getResultats();
     }
 
     public String determinerGagnant() {
-        Joueur gagnant = null;
-        Main meilleurMain = null;
+        return abattage().toString();
+    }
 
-        for (Joueur joueur : joueurs) {
-            joueur.evaluerMeilleureMain(cartesCommunes);
-            Main mainActuelle = joueur.getMeilleureMain();
+    // probabilités de victoire et d'égalité de chaque joueur avec les cartes communes actuelles
+    public ResultatEquite calculerEquites(long essais) {
+        verifierHoldem();
+        return EQUITE_MONTE_CARLO.calculer(getMainsPrivees(), cartesCommunes.getCartes(), essais);
+    }
 
-            if (meilleurMain == null || mainActuelle.comparerAvec(meilleurMain) > 0) {
-                meilleurMain = mainActuelle;
-                gagnant = joueur;
-            }
+    public ResultatEquite calculerEquites(Duration budget) {
+        verifierHoldem();
+        return EQUITE_MONTE_CARLO.calculerPendant(getMainsPrivees(), cartesCommunes.getCartes(), budget);
+    }
+
+    // probabilités exactes : toutes les fins de tableau possibles avec les cartes du talon
+    public ResultatEquite calculerEquitesExactes() {
+        verifierHoldem();
+        return EQUITE_EXACTE.calculer(getMainsPrivees(), cartesCommunes.getCartes(), talon.masqueCartes());
+    }
+
+    // les calculs d'équité évaluent les 7 cartes de chaque joueur, ce qui ne vaut qu'au Hold'em
+    private void verifierHoldem() {
+        if (variante != Variante.HOLDEM) {
+            throw new UnsupportedOperationException("Équités disponibles uniquement au Texas Hold'em");
+        }
+    }
+
+    private List<List<Carte>> getMainsPrivees() {
+        List<List<Carte>> mains = new ArrayList<>();
+        for (Joueur joueur : joueurs) {
+            mains.add(joueur.getCartesPrivees());
         }
+        return mains;
+    }
 
-        return gagnant != null ? gagnant.getNom() + " gagne avec " + meilleurMain.evaluerMain() : null;
+    // équité préflop du joueur contre les autres joueurs de la table, lue dans la table des 169 classes
+    public double getEquitePreflop(String nom) {
+        verifierHoldem();
+        Joueur joueur = getJoueurParNom(nom);
+        List<Carte> cartes = joueur.getCartesPrivees();
+        return EquitePreflop.equite(cartes.get(0), cartes.get(1), joueurs.size() - 1);
+    }
+
+    public Variante getVariante() {
+        return variante;
+    }
+
+    public List<String> getNomsJoueurs() {
+        List<String> noms = new ArrayList<>();
+        for (Joueur joueur : joueurs) {
+            noms.add(joueur.getNom());
+        }
+        return noms;
     }
 
     public List<Carte> getCartesCommunes() {
@@ -99,62 +190,104 @@ public class PokerHoldem {
 class Joueur {
 
     private String nom;
+    private final Variante variante;
     private List<Carte> cartesPrivees;
+    private final EtatMain etat = new EtatMain();
+    private long masquePrivees;
+    private long masqueCartes;
+    private int rang;
     private Main meilleureMain;
 
     public Joueur(String nom) {
+        this(nom, Variante.HOLDEM);
+    }
+
+    public Joueur(String nom, Variante variante) {
         this.nom = nom;
+        this.variante = variante;
         this.cartesPrivees = new ArrayList<>();
     }
 
     public void recevoirCartesPrivees(Carte carte1, Carte carte2) {
+        recevoirCartesPrivees(List.of(carte1, carte2));
+    }
+
+    public void recevoirCartesPrivees(List<Carte> cartes) {
+        if (cartes.size() != variante.getCartesPrivees()) {
+            throw new IllegalArgumentException("Il faut " + variante.getCartesPrivees() + " cartes privées");
+        }
         cartesPrivees.clear();
-        cartesPrivees.add(carte1);
-        cartesPrivees.add(carte2);
+        etat.reinitialiser();
+        for (Carte carte : cartes) {
+            cartesPrivees.add(carte);
+            etat.ajouter(carte);
+        }
+        masquePrivees = etat.getMasque();
+        rang = 0;
+        meilleureMain = null;
     }
 
-    public void evaluerMeilleureMain(CartesCommunes cartesCommunes) {
-        List<Carte> toutesLesCartes = new ArrayList<>(cartesPrivees);
-        toutesLesCartes.addAll(cartesCommunes.getCartes());
-        meilleureMain = trouverMeilleureCombinaison(toutesLesCartes);
+    void ajouterCarteCommune(Carte carte) {
+        etat.ajouter(carte);
     }
 
-    private Main trouverMeilleureCombinaison(List<Carte> toutesLesCartes) {
-        Main meilleureCombinaison = null;
-        List<List<Carte>> combinaisons = genererCombinaisons(toutesLesCartes, 5);
+    int getRangActuel() {
+        if (variante == Variante.OMAHA) {
+            return EvaluateurOmaha.evaluer(masquePrivees, etat.getMasque() & ~masquePrivees);
+        }
+        return etat.getRang();
+    }
 
-        for (List<Carte> combinaison : combinaisons) {
-            Main main = new Main();
-            for (Carte carte : combinaison) {
-                main.ajouterCarte(carte);
+    // l'état est normalement déjà à jour ; il n'est reconstruit que s'il ne contient pas exactement
+    // les cartes privées et les cartes communes données
+    public void evaluerMeilleureMain(CartesCommunes cartesCommunes) {
+        List<Carte> communes = cartesCommunes.getCartes();
+        long masque = masquePrivees;
+        for (Carte carte : communes) {
+            masque |= carte.getMasque();
+        }
+        if (etat.getMasque() != masque) {
+            etat.reinitialiser();
+            for (Carte carte : cartesPrivees) {
+                etat.ajouter(carte);
             }
-
-            if (meilleureCombinaison == null || main.comparerAvec(meilleureCombinaison) > 0) {
-                meilleureCombinaison = main;
+            for (Carte carte : communes) {
+                etat.ajouter(carte);
             }
         }
-
-        return meilleureCombinaison;
+        masqueCartes = etat.getMasque();
+        rang = getRangActuel();
+        meilleureMain = null;
     }
 
-    private List<List<Carte>> genererCombinaisons(List<Carte> cartes, int taille) {
-        List<List<Carte>> combinaisons = new ArrayList<>();
-        genererCombinaisonsHelper(cartes, taille, 0, new ArrayList<>(), combinaisons);
-        return combinaisons;
-    }
+    // les 5 cartes de la meilleure main ne sont retrouvées que si on les affiche
+    private Main trouverMeilleureCombinaison() {
+        if (variante == Variante.OMAHA) {
+            long main = EvaluateurOmaha.meilleureMain(masquePrivees, masqueCartes & ~masquePrivees);
+            return new Main(cartes(main), rang);
+        }
 
-    private void genererCombinaisonsHelper(List<Carte> cartes, int taille, int debut,
-            List<Carte> actuelle, List<List<Carte>> resultat) {
-        if (actuelle.size() == taille) {
-            resultat.add(new ArrayList<>(actuelle));
-            return;
+        List<Carte> toutesLesCartes = cartes(masqueCartes);
+        IterateurCombinaisons iterateur = new IterateurCombinaisons(toutesLesCartes.size(), Main.getTailleMain());
+        int[] indices = new int[Main.getTailleMain()];
+        while (iterateur.suivante(indices)) {
+            long combinaison = 0L;
+            for (int indice : indices) {
+                combinaison |= toutesLesCartes.get(indice).getMasque();
+            }
+            if (EvaluateurMain.evaluer(combinaison) == rang) {
+                return new Main(cartes(combinaison), rang);
+            }
         }
+        return null;
+    }
 
-        for (int i = debut; i < cartes.size(); i++) {
-            actuelle.add(cartes.get(i));
-            genererCombinaisonsHelper(cartes, taille, i + 1, actuelle, resultat);
-            actuelle.remove(actuelle.size() - 1);
+    private static List<Carte> cartes(long masque) {
+        List<Carte> cartes = new ArrayList<>();
+        for (long reste = masque; reste != 0; reste &= reste - 1) {
+            cartes.add(Carte.parIndice(Long.numberOfTrailingZeros(reste)));
         }
+        return cartes;
     }
 
     public String getNom() {
@@ -165,14 +298,21 @@ class Joueur {
         return Collections.unmodifiableList(cartesPrivees);
     }
 
+    int getRang() {
+        return rang;
+    }
+
     public Main getMeilleureMain() {
+        if (meilleureMain == null && rang != 0) {
+            meilleureMain = trouverMeilleureCombinaison();
+        }
         return meilleureMain;
     }
 
     public void afficherMain() {
         System.out.println(nom + " - Cartes privées: " + cartesPrivees);
-        System.out.println("Meilleure main: " + meilleureMain);
-        System.out.println("Combinaison: " + meilleureMain.evaluerMain());
+        System.out.println("Meilleure main: " + getMeilleureMain());
+        System.out.println("Combinaison: " + EvaluateurMain.combinaison(rang));
         System.out.println();
     }
 
@@ -201,3 +341,21 @@ class CartesCommunes {
         return Collections.unmodifiableList(cartes);
     }
 }
+
+// variantes jouées avec le même paquet et les mêmes cartes communes
+enum Variante {
+    // meilleure main de 5 cartes parmi les 2 cartes privées et les cartes communes
+    HOLDEM(2),
+    // exactement 2 des 4 cartes privées et 3 cartes communes (voir EvaluateurOmaha)
+    OMAHA(4);
+
+    private final int cartesPrivees;
+
+    Variante(int cartesPrivees) {
+        this.cartesPrivees = cartesPrivees;
+    }
+
+    public int getCartesPrivees() {
+        return cartesPrivees;
+    }
+}
@@ -0,0 +1,354 @@
+package edu.info0502.pocker;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// Protocole binaire versionné, négocié par client et utilisé à la place du JSON et des textes :
+//   octet MARQUEUR (0xFE, jamais en tête d'un texte UTF-8 ni d'un objet JSON), octet VERSION, octet code,
+//   puis les champs du code dans un ordre fixe. Chaînes : longueur en varint puis UTF-8 ; cartes :
+//   un octet par carte (Carte.getIndice) précédé de leur nombre ; pourcentages en dix-millièmes sur 2 octets.
+// Le client envoie d'abord HELLO en JSON : un serveur qui ne connaît pas le protocole l'ignore et
+// le client reste en JSON. Sinon le serveur répond BIENVENUE et les deux passent au binaire pour ce joueur.
+// Les textes restent possibles dans les deux sens ; une trame binaire se délimite d'elle-même.
+final class ProtocoleBinaire {
+
+    static final byte MARQUEUR = (byte) 0xFE;
+    static final int VERSION = 1;
+
+    // les commandes des clients ont pour code l'ordinal de leur TypeCommande, les réponses du serveur
+    static final int BIENVENUE = 0x40;
+    static final int CARTES_PRIVEES = 0x41;
+    static final int TABLEAU = 0x42;
+    static final int COMBINAISON = 0x43;
+    static final int EQUITES = 0x44;
+    static final int RESULTAT = 0x45;
+    static final int GAGNANTS = 0x46;
+
+    // étapes de TABLEAU
+    static final int FLOP = 0;
+    static final int TURN = 1;
+    static final int RIVER = 2;
+    private static final String[] ETAPES = {"Flop", "Turn", "River"};
+
+    // statuts de RESULTAT
+    static final int PERDANT = 0;
+    static final int GAGNANT = 1;
+    static final int PARTAGE = 2;
+
+    private static final double ECHELLE = 10_000.0;
+
+    private ProtocoleBinaire() {
+    }
+
+    static boolean estBinaire(byte[] charge) {
+        return charge.length >= 3 && charge[0] == MARQUEUR;
+    }
+
+    // code de la trame, -1 si ce n'est pas une trame de cette version
+    static int code(byte[] charge) {
+        if (!estBinaire(charge) || charge[1] != VERSION) {
+            return -1;
+        }
+        return charge[2] & 0xFF;
+    }
+
+    // --- commandes ---
+
+    static byte[] encoderCommande(String type, Map<String, String> data) {
+        TypeCommande commande = TypeCommande.valueOf(type);
+        Ecrivain sortie = new Ecrivain(commande.ordinal());
+        sortie.chaine(data.get("player"));
+        switch (commande) {
+            case HELLO:
+                sortie.varint(VERSION);
+                break;
+            case LIST_TABLES:
+                // filtres facultatifs, vides ou nuls s'ils sont absents
+                sortie.chaine(data.get("status"));
+                sortie.varint(entier(data.get("minSeats")));
+                sortie.chaine(data.get("admin"));
+                sortie.varint(entier(data.get("limit")));
+                sortie.chaine(data.get("cursor"));
+                break;
+            case JOIN_TABLE:
+            case START_GAME:
+            case CLOSE_TABLE:
+                sortie.chaine(data.get("tableId"));
+                break;
+            case EQUITY:
+                sortie.chaine(data.get("ranges"));
+                sortie.cartes(PlageMains.parserCartes(data.getOrDefault("board", "")));
+                String budget = data.get("budgetMs");
+                sortie.varint(budget != null ? Long.parseLong(budget.trim()) : 0);
+                break;
+            default:
+                break;
+        }
+        return sortie.octets();
+    }
+
+    // même commande qu'en JSON (voir DecodeurCommande), pour la même suite de traitement
+    static Commande decoderCommande(byte[] charge) {
+        TypeCommande type = TypeCommande.parCode(code(charge));
+        if (type == null) {
+            throw new IllegalArgumentException("Trame de commande invalide");
+        }
+        ByteBuffer entree = ByteBuffer.wrap(charge, 3, charge.length - 3);
+        String player = lireChaine(entree);
+        String tableId = null;
+        String ranges = null;
+        String board = null;
+        String budgetMs = null;
+        RequeteTables requete = null;
+        switch (type) {
+            case HELLO:
+                CodecHistorique.lireVarint(entree);
+                break;
+            case LIST_TABLES:
+                requete = !entree.hasRemaining() ? RequeteTables.TOUTES : RequeteTables.depuis(lireChaine(entree),
+                        Long.toString(CodecHistorique.lireVarint(entree)), lireChaine(entree),
+                        positif(CodecHistorique.lireVarint(entree)), lireChaine(entree));
+                break;
+            case JOIN_TABLE:
+            case START_GAME:
+            case CLOSE_TABLE:
+                tableId = lireChaine(entree);
+                if (tableId.isEmpty()) {
+                    tableId = null;
+                }
+                break;
+            case EQUITY:
+                ranges = lireChaine(entree);
+                board = PlageMains.symboles(lireCartes(entree));
+                long budget = CodecHistorique.lireVarint(entree);
+                if (budget > 0) {
+                    budgetMs = Long.toString(budget);
+                }
+                break;
+            default:
+                break;
+        }
+        return new Commande(type, player, tableId, ranges, board, budgetMs, requete);
+    }
+
+    private static long entier(String valeur) {
+        return valeur == null || valeur.isBlank() ? 0 : Long.parseLong(valeur.trim());
+    }
+
+    private static String positif(long valeur) {
+        return valeur > 0 ? Long.toString(valeur) : null;
+    }
+
+    // --- réponses ---
+
+    static byte[] bienvenue() {
+        Ecrivain sortie = new Ecrivain(BIENVENUE);
+        sortie.varint(VERSION);
+        return sortie.octets();
+    }
+
+    static byte[] cartesPrivees(List<Carte> cartes, double equitePreflop) {
+        Ecrivain sortie = new Ecrivain(CARTES_PRIVEES);
+        sortie.cartes(cartes);
+        sortie.pourcentage(equitePreflop);
+        return sortie.octets();
+    }
+
+    static byte[] tableau(int etape, List<Carte> cartes) {
+        Ecrivain sortie = new Ecrivain(TABLEAU);
+        sortie.octet(etape);
+        sortie.cartes(cartes);
+        return sortie.octets();
+    }
+
+    static byte[] combinaison(CombinaisonPoker combinaison) {
+        Ecrivain sortie = new Ecrivain(COMBINAISON);
+        sortie.octet(combinaison.ordinal());
+        return sortie.octets();
+    }
+
+    static byte[] equites(ResultatEquite equites, List<String> noms) {
+        Ecrivain sortie = new Ecrivain(EQUITES);
+        sortie.varint(equites.getNombreJoueurs());
+        for (int i = 0; i < equites.getNombreJoueurs(); i++) {
+            sortie.chaine(noms.get(i));
+            sortie.pourcentage(equites.getVictoire(i));
+            sortie.pourcentage(equites.getEgalite(i));
+        }
+        return sortie.octets();
+    }
+
+    static byte[] resultat(CombinaisonPoker combinaison, int statut) {
+        Ecrivain sortie = new Ecrivain(RESULTAT);
+        sortie.octet(combinaison.ordinal());
+        sortie.octet(statut);
+        return sortie.octets();
+    }
+
+    static byte[] gagnants(Abattage abattage) {
+        Ecrivain sortie = new Ecrivain(GAGNANTS);
+        sortie.octet(abattage.getCombinaisonGagnante().ordinal());
+        sortie.varint(abattage.getGagnants().size());
+        for (String gagnant : abattage.getGagnants()) {
+            sortie.chaine(gagnant);
+        }
+        return sortie.octets();
+    }
+
+    // découpe un message reçu (éventuellement un lot, voir EnvoiMqtt) en textes affichables ;
+    // les trames de commande des autres clients sont ignorées
+    static List<String> decoderMessages(byte[] charge) {
+        List<String> textes = new ArrayList<>();
+        int position = 0;
+        while (position < charge.length) {
+            if (charge[position] == MARQUEUR) {
+                ByteBuffer entree = ByteBuffer.wrap(charge, position, charge.length - position);
+                String texte = texte(entree);
+                if (texte == null) {
+                    // commande d'un client : non délimitée pour le lecteur, le reste du message est ignoré
+                    break;
+                }
+                textes.add(texte);
+                position = entree.position();
+                if (position < charge.length && charge[position] == EnvoiMqtt.SEPARATEUR) {
+                    position++;
+                }
+            } else {
+                int fin = position;
+                while (fin < charge.length && charge[fin] != EnvoiMqtt.SEPARATEUR) {
+                    fin++;
+                }
+                textes.add(new String(charge, position, fin - position, StandardCharsets.UTF_8));
+                position = fin + 1;
+            }
+        }
+        return textes;
+    }
+
+    // texte français d'une réponse, identique à celui que le serveur envoie aux clients JSON
+    private static String texte(ByteBuffer entree) {
+        entree.get();
+        if (entree.get() != VERSION) {
+            return null;
+        }
+        int code = entree.get() & 0xFF;
+        CombinaisonPoker[] combinaisons = CombinaisonPoker.values();
+        switch (code) {
+            case BIENVENUE:
+                return "Protocole binaire v" + CodecHistorique.lireVarint(entree) + " activé";
+            case CARTES_PRIVEES:
+                return Publisher.HOLE_CARDS + lireCartes(entree)
+                        + String.format(" (équité préflop: %.1f%%)", 100 * lirePourcentage(entree));
+            case TABLEAU:
+                String etape = ETAPES[entree.get()];
+                return etape + ": " + lireCartes(entree);
+            case COMBINAISON:
+                return "Votre main: " + combinaisons[entree.get()];
+            case EQUITES:
+                StringBuilder texte = new StringBuilder("Probabilités: ");
+                long joueurs = CodecHistorique.lireVarint(entree);
+                for (int i = 0; i < joueurs; i++) {
+                    if (i > 0) {
+                        texte.append(", ");
+                    }
+                    texte.append(lireChaine(entree)).append(String.format(" %.1f%% (égalité %.1f%%)",
+                            100 * lirePourcentage(entree), 100 * lirePourcentage(entree)));
+                }
+                return texte.toString();
+            case RESULTAT:
+                CombinaisonPoker combinaison = combinaisons[entree.get()];
+                int statut = entree.get();
+                return Publisher.RESULT + combinaison
+                        + (statut == GAGNANT ? " (gagnant)" : statut == PARTAGE ? " (pot partagé)" : "");
+            case GAGNANTS:
+                CombinaisonPoker gagnante = combinaisons[entree.get()];
+                String[] noms = new String[(int) CodecHistorique.lireVarint(entree)];
+                for (int i = 0; i < noms.length; i++) {
+                    noms[i] = lireChaine(entree);
+                }
+                if (noms.length > 1) {
+                    return "Égalité: Pot partagé entre " + String.join(", ", noms) + " avec " + gagnante;
+                }
+                return "Le gagnant est: " + noms[0] + " gagne avec " + gagnante;
+            default:
+                return null;
+        }
+    }
+
+    private static String lireChaine(ByteBuffer entree) {
+        int longueur = (int) CodecHistorique.lireVarint(entree);
+        String chaine = new String(entree.array(), entree.arrayOffset() + entree.position(), longueur,
+                StandardCharsets.UTF_8);
+        entree.position(entree.position() + longueur);
+        return chaine;
+    }
+
+    private static List<Carte> lireCartes(ByteBuffer entree) {
+        int nombre = entree.get();
+        List<Carte> cartes = new ArrayList<>(nombre);
+        for (int i = 0; i < nombre; i++) {
+            cartes.add(Carte.parIndice(entree.get()));
+        }
+        return cartes;
+    }
+
+    private static double lirePourcentage(ByteBuffer entree) {
+        return (entree.getShort() & 0xFFFF) / ECHELLE;
+    }
+
+    // tampon extensible pour une trame, en-tête compris
+    private static final class Ecrivain {
+        private byte[] octets = new byte[64];
+        private int taille;
+
+        Ecrivain(int code) {
+            octet(MARQUEUR);
+            octet(VERSION);
+            octet(code);
+        }
+
+        void octet(int valeur) {
+            if (taille == octets.length) {
+                octets = Arrays.copyOf(octets, taille * 2);
+            }
+            octets[taille++] = (byte) valeur;
+        }
+
+        void varint(long valeur) {
+            while ((valeur & ~0x7FL) != 0) {
+                octet((int) (valeur & 0x7F) | 0x80);
+                valeur >>>= 7;
+            }
+            octet((int) valeur);
+        }
+
+        void chaine(String chaine) {
+            byte[] utf8 = (chaine != null ? chaine : "").getBytes(StandardCharsets.UTF_8);
+            varint(utf8.length);
+            for (byte b : utf8) {
+                octet(b);
+            }
+        }
+
+        void cartes(List<Carte> cartes) {
+            octet(cartes.size());
+            for (Carte carte : cartes) {
+                octet(carte.getIndice());
+            }
+        }
+
+        void pourcentage(double proportion) {
+            int valeur = (int) Math.round(Math.max(0, Math.min(1, proportion)) * ECHELLE);
+            octet(valeur >>> 8);
+            octet(valeur);
+        }
+
+        byte[] octets() {
+            return Arrays.copyOf(octets, taille);
+        }
+    }
+}
@@ -1,158 +1,379 @@
 package edu.info0502.pocker;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-
-import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
-import org.eclipse.paho.client.mqttv3.MqttCallback;
-import org.eclipse.paho.client.mqttv3.MqttClient;
-import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
-import org.eclipse.paho.client.mqttv3.MqttException;
-import org.eclipse.paho.client.mqttv3.MqttMessage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 
 public class Publisher {
-    private static final String MQTT_BROKER = "tcp://10.11.18.72:1883";
-    private static final String GAME_TOPIC = "poker/game/#";  // pour tous le games topics
-    private static final String TABLE_TOPIC_PREFIX = "poker/game/table/";
-    private static final String PLAYER_TOPIC_PREFIX = "poker/player/";
-    private static final int MAX_PLAYERS_PER_TABLE = 6;
+    // topic des commandes des clients ; le serveur écoute aussi les topics de table en dessous
+    static final String COMMAND_TOPIC = "poker/game";
+    private static final String GAME_TOPIC = COMMAND_TOPIC + "/#";  // pour tous le games topics
+    private static final String TABLE_TOPIC_PREFIX = COMMAND_TOPIC + "/table/";
+    static final String PLAYER_TOPIC_PREFIX = "poker/player/";
+    // instantané du lobby republié au plus tard après ce nombre de deltas, ou une seconde après le dernier
+    private static final int LOBBY_SNAPSHOT_DELTAS = 32;
+    private static final long LOBBY_SNAPSHOT_DELAY_MS = 1000;
+    static final int MAX_PLAYERS_PER_TABLE = 6;
+    // début des réponses aux commandes, reconnues par les clients de test (GenerateurCharge, tests)
+    static final String TABLE_CREATED = "Table créée avec succès. Vous êtes l'administrateur de la table ";
+    static final String TABLE_JOINED = "Vous avez rejoint la table ";
+    static final String TABLE_LIST = "Tables disponibles:";
+    static final String HOLE_CARDS = "Vos cartes: ";
+    static final String RESULT = "Résultat: ";
+    static final String TABLE_NOT_FOUND = "Table introuvable";
+    static final String GAME_IN_PROGRESS = "Une partie est en cours sur cette table";
+    static final String TABLE_FULL = "Table complète";
+    static final String NO_TABLE = "Vous n'êtes à aucune table";
+    static final String ADMIN_ONLY = "Seul l'administrateur peut ";
+    static final String NOT_ENOUGH_PLAYERS = "Il faut au moins 2 joueurs pour commencer";
+    static final String EQUITY_BUSY = "Trop de calculs d'équité en cours, réessayez plus tard";
+    // réponses signalant l'échec d'une commande
+    static final List<String> ERROR_REPLIES = List.of(TABLE_NOT_FOUND, GAME_IN_PROGRESS, TABLE_FULL, NO_TABLE,
+            ADMIN_ONLY, NOT_ENOUGH_PLAYERS, EQUITY_BUSY);
+    // budget des calculs d'équité demandés par les clients (commande EQUITY), en millisecondes
+    private static final long EQUITY_DEFAULT_BUDGET_MS = 500;
+    private static final long EQUITY_MAX_BUDGET_MS = 5000;
+    private static final int EQUITY_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int EQUITY_MAX_REQUESTS = 4;
+    // attente maximale de chaque étape de close() (acteurs, écriture de l'historique)
+    private static final Duration SHUTDOWN_DELAY = Duration.ofSeconds(10);
+    private static final Path HISTORY_DIRECTORY = Paths.get(System.getProperty("pocker.historique", "historique"));
+    // -Dpocker.traces=false pour ne pas afficher chaque message reçu (tests de charge)
+    private static final boolean TRACES = Boolean.parseBoolean(System.getProperty("pocker.traces", "true"));
 
     private final Map<String, PokerTable> tables = new ConcurrentHashMap<>();
     private final Map<String, String> playerTableMapping = new ConcurrentHashMap<>();
-    private final MqttClient mqttClient;
+    // joueurs ayant annoncé le protocole binaire (HELLO), connus de tous les shards
+    private final Set<String> binaryClients = ConcurrentHashMap.newKeySet();
+    // création et liste des tables ; chaque table a ensuite son propre acteur
+    private final Acteur lobby = new Acteur("lobby");
+    private final Thread lobbySnapshotRefresher;
+    private final Transport transport;
+    private final EnvoiMqtt outbound;
+    // compteurs et durées exposés en JMX (voir Metriques)
+    private final Metriques metrics;
     private final Gson gson = new Gson();
+    // les calculs demandés par les clients ont leur propre pool, borné, pour ne pas prendre
+    // le pool commun des parties (équités exactes de chaque table) ; au-delà de
+    // EQUITY_MAX_REQUESTS calculs simultanés sur ce serveur, les demandes sont refusées
+    private final ForkJoinPool equityPool;
+    private final EquitePlages equityEngine;
+    private final Semaphore equityRequests = new Semaphore(EQUITY_MAX_REQUESTS);
+    // partage des tables entre serveurs : ce serveur ne traite que les clés que l'anneau lui attribue
+    private final AnneauCoherent ring;
+    private final int shard;
+    // tables de ce shard telles que publiées dans le lobby (modifiées par l'acteur lobby)
+    private final FluxLobby lobbyFeed;
+    private long lobbySnapshotVersion = -1;
+    // copies des lobbys des autres shards, pour LIST_TABLES
+    private final Map<Integer, FluxLobby> shardTables = new ConcurrentHashMap<>();
+    // un seul fil écrit l'historique de toutes les tables, la partie ne fait que lui soumettre les donnes
+    private final ExecutorService historyWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "historique");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public Publisher() throws IOException {
+        this(Transport.adresseParDefaut(), 0, 1);
+    }
+
+    // broker : URI MQTT ou Transport.LOCAL ; shard : numéro de ce serveur parmi shards serveurs reliés au même broker
+    public Publisher(String broker, int shard, int shards) throws IOException {
+        this(Transport.connecter(broker, "serveur-" + shard), shard, shards);
+    }
 
-    public Publisher() throws MqttException {
-        mqttClient = new MqttClient(MQTT_BROKER, MqttClient.generateClientId(), null);
-        MqttConnectOptions options = new MqttConnectOptions();
-        options.setKeepAliveInterval(60);
-        options.setAutomaticReconnect(true);
-        mqttClient.connect(options);
-        mqttClient.setCallback(new MqttCallbackAdapter());
-        mqttClient.subscribe(GAME_TOPIC);
-        System.out.println("Serveur MQTT multi-tables prêt !");
+    public Publisher(Transport transport, int shard, int shards) {
+        if (shard < 0 || shard >= shards) {
+            throw new IllegalArgumentException("Shard " + shard + " hors de [0, " + shards + ")");
+        }
+        this.ring = new AnneauCoherent(shards);
+        this.shard = shard;
+        this.lobbyFeed = new FluxLobby(shard, UUID.randomUUID().getMostSignificantBits());
+        this.transport = transport;
+        equityPool = new ForkJoinPool(EQUITY_THREADS);
+        equityEngine = new EquitePlages(equityPool);
+        metrics = new Metriques(shard, tables::size, playerTableMapping::size, this::pendingMessages);
+        outbound = new EnvoiMqtt(transport, metrics.getPublications());
+        transport.setReception(this::handleIncomingMessage);
+        transport.abonner(GAME_TOPIC).join();
+        if (shards > 1) {
+            transport.abonner(FluxLobby.SNAPSHOTS, FluxLobby.DELTAS).join();
+        }
+        publishLobbySnapshot();
+        lobbySnapshotRefresher = Thread.ofVirtual().name("lobby-snapshot").start(this::refreshLobbySnapshot);
+        System.out.println("Serveur MQTT multi-tables prêt ! (shard " + shard + "/" + shards + ")");
     }
 
     private class PokerTable {
         private final String tableId;
         private final String adminPlayer;
+        // lus par le lobby (LIST_TABLES) pendant que l'acteur de la table les modifie
         private final Set<String> players;
         private PokerHoldem currentGame;
-        private boolean gameInProgress;
+        private volatile boolean gameInProgress;
+        // ouvert à la première donne terminée (voir historyOf), modifié par l'acteur de la table uniquement
+        private JournalHistorique history;
+        private boolean historyUnavailable;
+        // toutes les commandes de la table passent par cet acteur, une à la fois
+        private final Acteur actor;
 
         public PokerTable(String tableId, String adminPlayer) {
             this.tableId = tableId;
             this.adminPlayer = adminPlayer;
-            this.players = new HashSet<>();
+            this.players = ConcurrentHashMap.newKeySet();
             this.players.add(adminPlayer);
+            this.actor = new Acteur("table-" + tableId);
             this.gameInProgress = false;
         }
     }
 
-    private void handleIncomingMessage(String topic, String message) {
+    // une table qui ne joue aucune donne n'a ni dossier ni segment projeté ; null si l'historique
+    // ne peut pas être ouvert (l'erreur n'est signalée qu'une fois)
+    private JournalHistorique historyOf(PokerTable table) {
+        if (table.history == null && !table.historyUnavailable) {
+            try {
+                table.history = new JournalHistorique(HISTORY_DIRECTORY.resolve(table.tableId), historyWriter);
+            } catch (IOException | UncheckedIOException e) {
+                table.historyUnavailable = true;
+                System.err.println("Historique indisponible pour la table " + table.tableId + " : " + e.getMessage());
+            }
+        }
+        return table.history;
+    }
+
+    private void handleIncomingMessage(String topic, byte[] content) {
+        long received = System.nanoTime();
         try {
-            if (!message.trim().startsWith("{")) {
-                System.out.println("Message: " + message);
+            if (topic.startsWith(FluxLobby.TOPIC_PREFIX)) {
+                // les deltas peuvent arriver regroupés (voir EnvoiMqtt)
+                for (String message : ProtocoleBinaire.decoderMessages(content)) {
+                    handleLobbyFeed(topic, message);
+                }
                 return;
             }
-            MessagePayload payload = gson.fromJson(message, MessagePayload.class);
-            System.out.println("Message reçu: " + message);
-
-            switch (payload.getType()) {
-                case "CREATE_TABLE":
-                    handleCreateTable(payload);
-                    break;
-                case "JOIN_TABLE":
-                    handleJoinTable(payload);
-                    break;
-                case "START_GAME":
-                    handleStartGame(payload);
-                    break;
-                case "CLOSE_TABLE":
-                    handleCloseTable(payload);
-                    break;
-                case "LIST_TABLES":
-                    handleListTables(payload);
-                    break;
-                default:
-                    System.out.println("Commande non reconnue: " + payload.getType());
+            Commande command;
+            if (ProtocoleBinaire.estBinaire(content)) {
+                // les réponses du serveur reviennent aussi sur poker/game/# : seules les commandes sont lues
+                int code = ProtocoleBinaire.code(content);
+                if (code < 0 || code >= ProtocoleBinaire.BIENVENUE) {
+                    return;
+                }
+                command = ProtocoleBinaire.decoderCommande(content);
+            } else {
+                if (!startsWithBrace(content)) {
+                    if (TRACES) {
+                        System.out.println("Message: " + new String(content, StandardCharsets.UTF_8));
+                    }
+                    return;
+                }
+                command = DecodeurCommande.decoder(content);
+            }
+            if (command.getType() == TypeCommande.HELLO) {
+                metrics.chronometrer(TypeCommande.HELLO, received, () -> handleHello(command)).run();
+                return;
+            }
+            if (!owns(command)) {
+                return;
             }
+            if (TRACES) {
+                System.out.println("Message reçu: " + command);
+            }
+
+            dispatch(command, received);
         } catch (JsonSyntaxException e) {
+            metrics.commandeInvalide();
             System.err.println("Erreur de syntaxe JSON: " + e.getMessage());
             e.printStackTrace();
+        } catch (IllegalArgumentException | BufferUnderflowException | IndexOutOfBoundsException e) {
+            metrics.commandeInvalide();
+            System.err.println("Commande invalide: " + e.getMessage());
+        }
+    }
+
+    // les commandes JSON sont des objets, le reste est du texte (messages des autres clients)
+    private static boolean startsWithBrace(byte[] content) {
+        for (byte b : content) {
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                return b == '{';
+            }
         }
+        return false;
     }
 
-    private void handleCreateTable(MessagePayload payload) {
-        String playerName = payload.getData().get("player");
-        String tableId = UUID.randomUUID().toString().substring(0, 8);
+    // tous les shards retiennent le choix du joueur (ses tables peuvent être n'importe où),
+    // seul son shard lui répond ; un client sans réponse reste en JSON
+    private void handleHello(Commande command) {
+        String playerName = command.getPlayer();
+        if (playerName == null) {
+            return;
+        }
+        binaryClients.add(playerName);
+        if (ring.shard(playerName) == shard) {
+            outbound.envoyer(PLAYER_TOPIC_PREFIX + playerName, ProtocoleBinaire.bienvenue());
+        }
+    }
+
+    // tous les shards reçoivent toutes les commandes : chacun ne garde que celles des tables qu'il possède,
+    // et celles sans table (création, liste, équité) reviennent au shard du joueur.
+    // Un START_GAME sans table (anciens clients) n'est traité que par le shard qui a le joueur à l'une
+    // de ses tables : le shard du joueur ne sait pas si un autre shard l'a, il ne doit pas répondre
+    // « Vous n'êtes à aucune table » en plus. Un joueur sans table n'a donc pas de réponse.
+    private boolean owns(Commande command) {
+        if (ring.nombreShards() == 1) {
+            return true;
+        }
+        String tableId = command.getTableId();
+        if (tableId == null && command.getType() == TypeCommande.START_GAME) {
+            return command.getPlayer() != null && playerTableMapping.containsKey(command.getPlayer());
+        }
+        String key = tableId != null ? tableId : command.getPlayer();
+        return key == null || ring.shard(key) == shard;
+    }
+
+    // le fil de Paho ne fait que décoder et ranger la commande dans la boîte de l'acteur concerné
+    // received : instant de réception, la durée mesurée comprend l'attente dans la file de l'acteur
+    private void dispatch(Commande command, long received) {
+        String playerName = command.getPlayer();
+        TypeCommande type = command.getType();
+        switch (type) {
+            case CREATE_TABLE:
+                lobby.envoyer(metrics.chronometrer(type, received, () -> handleCreateTable(command)));
+                break;
+            case LIST_TABLES:
+                lobby.envoyer(metrics.chronometrer(type, received, () -> handleListTables(command)));
+                break;
+            case JOIN_TABLE:
+                actorFor(command.getTableId()).envoyer(metrics.chronometrer(type, received, () -> handleJoinTable(command)));
+                break;
+            case START_GAME:
+                actorFor(startTableId(command)).envoyer(metrics.chronometrer(type, received, () -> handleStartGame(command)));
+                break;
+            case CLOSE_TABLE:
+                actorFor(command.getTableId()).envoyer(metrics.chronometrer(type, received, () -> handleCloseTable(command)));
+                break;
+            case EQUITY:
+                if (!equityRequests.tryAcquire()) {
+                    sendMessage(PLAYER_TOPIC_PREFIX + playerName, EQUITY_BUSY);
+                    break;
+                }
+                // calcul sans état partagé : un fil virtuel par demande
+                Thread.ofVirtual().name("equite-" + playerName).start(metrics.chronometrer(type, received, () -> {
+                    try {
+                        handleEquity(command);
+                    } finally {
+                        equityRequests.release();
+                    }
+                }));
+                break;
+            default:
+                System.out.println("Commande non reconnue: " + command.getType());
+        }
+    }
+
+    // les anciens clients n'envoient pas la table avec START_GAME : celle du joueur
+    private String startTableId(Commande command) {
+        if (command.getTableId() != null || command.getPlayer() == null) {
+            return command.getTableId();
+        }
+        return playerTableMapping.get(command.getPlayer());
+    }
+
+    // acteur de la table, ou le lobby si elle n'existe pas (il répondra « Table introuvable »)
+    private Acteur actorFor(String tableId) {
+        PokerTable table = tableId != null ? tables.get(tableId) : null;
+        return table != null ? table.actor : lobby;
+    }
+
+    private void handleCreateTable(Commande command) {
+        String playerName = command.getPlayer();
+        String tableId;
+        do {
+            tableId = UUID.randomUUID().toString().substring(0, 8);
+        } while (ring.shard(tableId) != shard);
         
         PokerTable table = new PokerTable(tableId, playerName);
         tables.put(tableId, table);
         playerTableMapping.put(playerName, tableId);
 
         
-        try {
-            mqttClient.subscribe(TABLE_TOPIC_PREFIX + tableId);
-        } catch (MqttException e) {
+        transport.abonner(TABLE_TOPIC_PREFIX + tableId).exceptionally(e -> {
             System.err.println("Erreur lors de la souscription à la table: " + e.getMessage());
-        }
+            return null;
+        });
 
         sendMessage(PLAYER_TOPIC_PREFIX + playerName, 
-                   "Table créée avec succès. Vous êtes l'administrateur de la table " + tableId);
-        broadcastTablesList();
+                   TABLE_CREATED + tableId);
+        tablesChanged(tableId);
     }
 
-    private void handleJoinTable(MessagePayload payload) {
-        String playerName = payload.getData().get("player");
-        String tableId = payload.getData().get("tableId");
+    private void handleJoinTable(Commande command) {
+        String playerName = command.getPlayer();
+        String tableId = command.getTableId();
         
         PokerTable table = tables.get(tableId);
         if (table == null) {
-            sendMessage(PLAYER_TOPIC_PREFIX + playerName, "Table introuvable");
+            sendMessage(PLAYER_TOPIC_PREFIX + playerName, TABLE_NOT_FOUND);
             return;
         }
 
         if (table.gameInProgress) {
-            sendMessage(PLAYER_TOPIC_PREFIX + playerName, "Une partie est en cours sur cette table");
+            sendMessage(PLAYER_TOPIC_PREFIX + playerName, GAME_IN_PROGRESS);
             return;
         }
 
         if (table.players.size() >= MAX_PLAYERS_PER_TABLE) {
-            sendMessage(PLAYER_TOPIC_PREFIX + playerName, "Table complète");
+            sendMessage(PLAYER_TOPIC_PREFIX + playerName, TABLE_FULL);
             return;
         }
 
         table.players.add(playerName);
         playerTableMapping.put(playerName, tableId);
-        sendMessage(PLAYER_TOPIC_PREFIX + playerName, "Vous avez rejoint la table " + tableId);
+        sendMessage(PLAYER_TOPIC_PREFIX + playerName, TABLE_JOINED + tableId);
         broadcastToTable(tableId, playerName + " a rejoint la table");
+        tablesChanged(table.tableId);
     }
 
-    private void handleStartGame(MessagePayload payload) {
-        String playerName = payload.getData().get("player");
-        String tableId = playerTableMapping.get(playerName);
+    private void handleStartGame(Commande command) {
+        String playerName = command.getPlayer();
+        String tableId = startTableId(command);
         
         if (tableId == null) {
-            sendMessage(PLAYER_TOPIC_PREFIX + playerName, "Vous n'êtes à aucune table");
+            sendMessage(PLAYER_TOPIC_PREFIX + playerName, NO_TABLE);
             return;
         }
 
         PokerTable table = tables.get(tableId);
+        if (table == null) {
+            sendMessage(PLAYER_TOPIC_PREFIX + playerName, TABLE_NOT_FOUND);
+            return;
+        }
         if (!table.adminPlayer.equals(playerName)) {
-            sendMessage(PLAYER_TOPIC_PREFIX + playerName, "Seul l'administrateur peut démarrer la partie");
+            sendMessage(PLAYER_TOPIC_PREFIX + playerName, ADMIN_ONLY + "démarrer la partie");
             return;
         }
 
         if (table.players.size() < 2) {
-            sendMessage(PLAYER_TOPIC_PREFIX + playerName, "Il faut au moins 2 joueurs pour commencer");
+            sendMessage(PLAYER_TOPIC_PREFIX + playerName, NOT_ENOUGH_PLAYERS);
             return;
         }
 
@@ -162,6 +383,7 @@ public class Publisher {
     private void startGameOnTable(PokerTable table) {
         try {
             table.gameInProgress = true;
+            tablesChanged(table.tableId);
             table.currentGame = new PokerHoldem(new ArrayList<>(table.players));
 
             broadcastToTable(table.tableId, "La partie commence !");
@@ -169,43 +391,89 @@ public class Publisher {
 
         
             table.players.forEach(player -> {
-                Joueur joueur = table.currentGame.getJoueurParNom(player);
-                sendMessage(PLAYER_TOPIC_PREFIX + player, 
-                          "Vos cartes: " + joueur.getCartesPrivees());
+                List<Carte> cartes = table.currentGame.getJoueurParNom(player).getCartesPrivees();
+                double equite = table.currentGame.getEquitePreflop(player);
+                sendToPlayer(player,
+                          () -> HOLE_CARDS + cartes + String.format(" (équité préflop: %.1f%%)", 100 * equite),
+                          () -> ProtocoleBinaire.cartesPrivees(cartes, equite));
             });
 
             distributeFlop(table);
         } catch (Exception e) {
             System.err.println("Erreur lors du démarrage de la partie : " + e.getMessage());
             table.gameInProgress = false;
+            tablesChanged(table.tableId);
         }
     }
 
     private void distributeFlop(PokerTable table) {
         table.currentGame.distribuerFlop();
-        broadcastToTable(table.tableId, "Flop: " + table.currentGame.getCartesCommunes());
+        List<Carte> board = table.currentGame.getCartesCommunes();
+        broadcastToTable(table, () -> "Flop: " + board,
+                () -> ProtocoleBinaire.tableau(ProtocoleBinaire.FLOP, board));
+        broadcastEquities(table);
+        sendHandStrengths(table);
         distributeTurn(table);
     }
 
     private void distributeTurn(PokerTable table) {
         table.currentGame.distribuerTurn();
-        broadcastToTable(table.tableId, "Turn: " + table.currentGame.getCartesCommunes());
+        List<Carte> board = table.currentGame.getCartesCommunes();
+        broadcastToTable(table, () -> "Turn: " + board,
+                () -> ProtocoleBinaire.tableau(ProtocoleBinaire.TURN, board));
+        broadcastEquities(table);
+        sendHandStrengths(table);
         distributeRiver(table);
     }
 
     private void distributeRiver(PokerTable table) {
         table.currentGame.distribuerRiver();
-        broadcastToTable(table.tableId, "River: " + table.currentGame.getCartesCommunes());
+        List<Carte> board = table.currentGame.getCartesCommunes();
+        broadcastToTable(table, () -> "River: " + board,
+                () -> ProtocoleBinaire.tableau(ProtocoleBinaire.RIVER, board));
+        broadcastEquities(table);
+        sendHandStrengths(table);
         showResults(table);
     }
 
+    private void sendHandStrengths(PokerTable table) {
+        table.players.forEach(player -> {
+            CombinaisonPoker combinaison = table.currentGame.getCombinaisonActuelle(player);
+            sendToPlayer(player, () -> "Votre main: " + combinaison, () -> ProtocoleBinaire.combinaison(combinaison));
+        });
+    }
+
+    private void broadcastEquities(PokerTable table) {
+        // au plus 1081 tableaux après le flop : l'énumération exacte suffit
+        ResultatEquite equites = table.currentGame.calculerEquitesExactes();
+        List<String> noms = table.currentGame.getNomsJoueurs();
+        broadcastToTable(table, () -> "Probabilités: " + equites.formater(noms),
+                () -> ProtocoleBinaire.equites(equites, noms));
+    }
+
     private void showResults(PokerTable table) {
-        Map<String, String> results = table.currentGame.calculerResultats();
-        results.forEach((player, result) -> 
-            sendMessage(PLAYER_TOPIC_PREFIX + player, "Résultat: " + result));
+        long showdownStart = System.nanoTime();
+        Abattage abattage = table.currentGame.abattage();
+        metrics.getAbattages().enregistrerDepuis(showdownStart);
+        metrics.donneTerminee();
+        abattage.getResultats().forEach((player, result) -> {
+            int status = !abattage.estGagnant(player) ? ProtocoleBinaire.PERDANT
+                    : abattage.estPartage() ? ProtocoleBinaire.PARTAGE : ProtocoleBinaire.GAGNANT;
+            sendToPlayer(player, () -> RESULT + result
+                    + (status == ProtocoleBinaire.PARTAGE ? " (pot partagé)" : status == ProtocoleBinaire.GAGNANT ? " (gagnant)" : ""),
+                    () -> ProtocoleBinaire.resultat(abattage.getCombinaison(player), status));
+        });
+
+        broadcastToTable(table, () -> (abattage.estPartage() ? "Égalité: " : "Le gagnant est: ") + abattage,
+                () -> ProtocoleBinaire.gagnants(abattage));
 
-        String winner = table.currentGame.determinerGagnant();
-        broadcastToTable(table.tableId, "Le gagnant est: " + winner);
+        JournalHistorique history = historyOf(table);
+        if (history != null) {
+            history.enregistrer(table.currentGame).exceptionally(e -> {
+                System.err.println("Erreur lors de l'écriture de l'historique : " + e.getMessage());
+                return -1L;
+            });
+        }
         
         endGame(table);
     }
@@ -214,20 +482,21 @@ public class Publisher {
         table.gameInProgress = false;
         table.currentGame = null;
         broadcastToTable(table.tableId, "La partie est terminée");
+        tablesChanged(table.tableId);
     }
 
-    private void handleCloseTable(MessagePayload payload) {
-        String playerName = payload.getData().get("player");
-        String tableId = payload.getData().get("tableId");
+    private void handleCloseTable(Commande command) {
+        String playerName = command.getPlayer();
+        String tableId = command.getTableId();
         
         PokerTable table = tables.get(tableId);
         if (table == null) {
-            sendMessage(PLAYER_TOPIC_PREFIX + playerName, "Table introuvable");
+            sendMessage(PLAYER_TOPIC_PREFIX + playerName, TABLE_NOT_FOUND);
             return;
         }
 
         if (!table.adminPlayer.equals(playerName)) {
-            sendMessage(PLAYER_TOPIC_PREFIX + playerName, "Seul l'administrateur peut fermer la table");
+            sendMessage(PLAYER_TOPIC_PREFIX + playerName, ADMIN_ONLY + "fermer la table");
             return;
         }
 
@@ -237,113 +506,224 @@ public class Publisher {
             playerTableMapping.remove(player);
         });
 
-        // supprimer une table
+        // supprimer une table ; les commandes déjà dans sa boîte la trouveront fermée
         tables.remove(tableId);
-        try {
-            mqttClient.unsubscribe(TABLE_TOPIC_PREFIX + tableId);
-        } catch (MqttException e) {
-            System.err.println("Erreur lors de la désinscription de la table: " + e.getMessage());
+        table.actor.arreter();
+        if (table.history != null) {
+            table.history.close();
         }
+        transport.desabonner(TABLE_TOPIC_PREFIX + tableId).exceptionally(e -> {
+            System.err.println("Erreur lors de la désinscription de la table: " + e.getMessage());
+            return null;
+        });
 
-        broadcastTablesList();
+        tablesChanged(tableId);
     }
 
-    private void handleListTables(MessagePayload payload) {
-        String playerName = payload.getData().get("player");
-        StringBuilder tableList = new StringBuilder("Tables disponibles:\n");
-        
-        tables.forEach((tableId, table) -> {
-            tableList.append("Table ").append(tableId)
-                    .append(" (").append(table.players.size()).append("/").append(MAX_PLAYERS_PER_TABLE)
-                    .append(" joueurs) - Admin: ").append(table.adminPlayer)
-                    .append(" - Status: ").append(table.gameInProgress ? "En cours" : "En attente")
+    // tables de tous les shards : celles de ce serveur, plus la copie du lobby de chacun des autres.
+    // Chaque lobby rend sa page à partir de ses index, les pages sont fusionnées dans le même ordre.
+    private void handleListTables(Commande command) {
+        String playerName = command.getPlayer();
+        RequeteTables request = command.getRequete() != null ? command.getRequete() : RequeteTables.TOUTES;
+        int limit = request.getLimite();
+
+        // une table de plus que la page, pour savoir s'il y a une suite
+        List<FluxLobby.Table> summaries = lobbyFeed.chercher(request, limit + 1);
+        shardTables.forEach((otherShard, others) -> {
+            if (otherShard != shard) {
+                summaries.addAll(others.chercher(request, limit + 1));
+            }
+        });
+        summaries.sort(RequeteTables.ORDRE);
+        boolean more = summaries.size() > limit;
+        List<FluxLobby.Table> page = more ? summaries.subList(0, limit) : summaries;
+
+        StringBuilder tableList = new StringBuilder(TABLE_LIST + "\n");
+        page.forEach(summary -> {
+            tableList.append("Table ").append(summary.getTableId())
+                    .append(" (").append(summary.getPlayers()).append("/").append(summary.getSeats())
+                    .append(" joueurs) - Admin: ").append(summary.getAdmin())
+                    .append(" - Status: ").append(summary.isInProgress() ? "En cours" : "En attente")
                     .append("\n");
         });
+        if (more) {
+            tableList.append("Suite: cursor=").append(RequeteTables.curseur(page.get(limit - 1))).append("\n");
+        }
 
         sendMessage(PLAYER_TOPIC_PREFIX + playerName, tableList.toString());
     }
 
-    private void broadcastToTable(String tableId, String message) {
-        sendMessage(TABLE_TOPIC_PREFIX + tableId, message);
+    // l'état de la table est relu au moment de la publication, dans l'ordre du lobby :
+    // chaque delta décrit ce qui a changé depuis le précédent
+    private void tablesChanged(String tableId) {
+        lobby.envoyer(() -> publishTableChange(tableId));
     }
 
-    private void broadcastTablesList() {
-        tables.forEach((tableId, table) -> {
-            String status = String.format("Table %s: %d/%d joueurs", 
-                tableId, table.players.size(), MAX_PLAYERS_PER_TABLE);
-            sendMessage(GAME_TOPIC, status);
-        });
+    private void publishTableChange(String tableId) {
+        PokerTable table = tables.get(tableId);
+        FluxLobby.Delta delta = lobbyFeed.modifier(tableId, table == null ? null
+                : new FluxLobby.Table(tableId, table.adminPlayer, table.players.size(), MAX_PLAYERS_PER_TABLE,
+                        table.gameInProgress));
+        if (delta == null) {
+            return;
+        }
+        outbound.envoyer(FluxLobby.topicDeltas(shard), gson.toJson(delta));
+        if (lobbyFeed.getVersion() - lobbySnapshotVersion >= LOBBY_SNAPSHOT_DELTAS) {
+            publishLobbySnapshot();
+        }
     }
 
-    private void sendMessage(String topic, String message) {
-        try {
-            if (!mqttClient.isConnected()) {
-                System.out.println("Client MQTT déconnecté, tentative de reconnexion...");
-                mqttClient.reconnect();
+    private void publishLobbySnapshot() {
+        FluxLobby.Instantane snapshot = lobbyFeed.instantane();
+        outbound.envoyerRetenu(FluxLobby.topicInstantane(shard), gson.toJson(snapshot));
+        lobbySnapshotVersion = lobbyFeed.getVersion();
+    }
+
+    // un client qui a manqué un delta se recale sur l'instantané : il ne doit pas trop retarder
+    private void refreshLobbySnapshot() {
+        while (true) {
+            try {
+                Thread.sleep(LOBBY_SNAPSHOT_DELAY_MS);
+            } catch (InterruptedException e) {
+                return;
             }
-            MqttMessage mqttMessage = new MqttMessage(message.getBytes());
-            mqttMessage.setQos(1);
-            mqttClient.publish(topic, mqttMessage);
-            Thread.sleep(200);
-        } catch (Exception e) {
-            System.err.println("Erreur lors de l'envoi du message au topic " + topic + ": " + e.getMessage());
+            lobby.envoyer(() -> {
+                if (lobbyFeed.getVersion() != lobbySnapshotVersion) {
+                    publishLobbySnapshot();
+                }
+            });
         }
     }
 
-    private class MqttCallbackAdapter implements MqttCallback {
-        @Override
-        public void connectionLost(Throwable cause) {
-            System.out.println("Connexion MQTT perdue : " + cause.getMessage());
-            while (!mqttClient.isConnected()) {
-                try {
-                    System.out.println("Tentative de reconnexion...");
-                    mqttClient.reconnect();
-                    mqttClient.subscribe(GAME_TOPIC);
-                    System.out.println("Reconnecté !");
-                    break;
-                } catch (MqttException e) {
-                    System.err.println("Échec de reconnexion : " + e.getMessage());
-                    try {
-                        Thread.sleep(5000);
-                    } catch (InterruptedException ex) {
-                        ex.printStackTrace();
-                    }
-                }
+    // lobby des autres shards : le nôtre revient aussi par le broker et est ignoré
+    private void handleLobbyFeed(String topic, String message) {
+        if (topic.endsWith(FluxLobby.SNAPSHOT_SUFFIX)) {
+            FluxLobby.Instantane snapshot = gson.fromJson(message, FluxLobby.Instantane.class);
+            if (snapshot != null && snapshot.getShard() != shard) {
+                shardTables.computeIfAbsent(snapshot.getShard(), FluxLobby::new).appliquer(snapshot);
             }
+        } else if (topic.endsWith(FluxLobby.DELTAS_SUFFIX)) {
+            FluxLobby.Delta delta = gson.fromJson(message, FluxLobby.Delta.class);
+            if (delta != null && delta.getShard() != shard
+                    && !shardTables.computeIfAbsent(delta.getShard(), FluxLobby::new).appliquer(delta)) {
+                // s'abonner à nouveau renvoie les instantanés retenus
+                transport.abonner(FluxLobby.SNAPSHOTS).exceptionally(e -> {
+                    System.err.println("Erreur lors de la resynchronisation du lobby: " + e.getMessage());
+                    return null;
+                });
+            }
+        }
+    }
+
+    // data: "ranges" (plages séparées par '|', par exemple "QQ+, AKs | top 20%"),
+    // "board" (facultatif, par exemple "Ah7d2c") et "budgetMs" (facultatif)
+    private void handleEquity(Commande command) {
+        String playerName = command.getPlayer();
+        String ranges = command.getRanges();
+        String board = command.getBoard() != null ? command.getBoard() : "";
+        if (ranges == null) {
+            sendMessage(PLAYER_TOPIC_PREFIX + playerName, "Plages manquantes");
+            return;
         }
 
-        @Override
-        public void messageArrived(String topic, MqttMessage message) {
-            handleIncomingMessage(topic, new String(message.getPayload()));
+        try {
+            List<PlageMains> plages = new ArrayList<>();
+            List<String> noms = new ArrayList<>();
+            for (String range : ranges.split("\\|")) {
+                PlageMains plage = PlageMains.parser(range);
+                plages.add(plage);
+                noms.add(plage.toString());
+            }
+            long budget = EQUITY_DEFAULT_BUDGET_MS;
+            String budgetMs = command.getBudgetMs();
+            if (budgetMs != null) {
+                budget = Math.min(Math.max(Long.parseLong(budgetMs.trim()), 1), EQUITY_MAX_BUDGET_MS);
+            }
+
+            ResultatEquite equites = equityEngine.calculerPendant(plages, PlageMains.parserCartes(board),
+                    Duration.ofMillis(budget));
+            sendMessage(PLAYER_TOPIC_PREFIX + playerName,
+                    "Équités (" + equites.getEssais() + " essais): " + equites.formater(noms));
+        } catch (IllegalArgumentException e) {
+            sendMessage(PLAYER_TOPIC_PREFIX + playerName, "Calcul d'équité impossible: " + e.getMessage());
         }
+    }
 
-        @Override
-        public void deliveryComplete(IMqttDeliveryToken token) {}
+    private void broadcastToTable(String tableId, String message) {
+        sendMessage(TABLE_TOPIC_PREFIX + tableId, message);
     }
 
-    private static class MessagePayload {
-        private String type;
-        private Map<String, String> data;
+    // en binaire seulement si tous les joueurs de la table l'ont négocié
+    private void broadcastToTable(PokerTable table, Supplier<String> message, Supplier<byte[]> frame) {
+        if (binaryClients.containsAll(table.players)) {
+            outbound.envoyer(TABLE_TOPIC_PREFIX + table.tableId, frame.get());
+        } else {
+            broadcastToTable(table.tableId, message.get());
+        }
+    }
 
-        public String getType() { return type; }
-        public Map<String, String> getData() { return data; }
+    private void sendToPlayer(String player, Supplier<String> message, Supplier<byte[]> frame) {
+        if (binaryClients.contains(player)) {
+            outbound.envoyer(PLAYER_TOPIC_PREFIX + player, frame.get());
+        } else {
+            sendMessage(PLAYER_TOPIC_PREFIX + player, message.get());
+        }
+    }
+
+    // ne bloque pas : l'ordre des messages est garanti par topic (voir EnvoiMqtt)
+    private void sendMessage(String topic, String message) {
+        outbound.envoyer(topic, message);
+    }
+
+    // messages du serveur pas encore publiés (lu par JMX)
+    private int pendingMessages() {
+        return outbound != null ? outbound.enAttente() : 0;
+    }
+
+    // les commandes déjà reçues sont traitées, puis l'historique de chaque table encore ouverte
+    // est écrit sur le disque avant l'arrêt du fil d'écriture
+    public void close() {
+        lobbySnapshotRefresher.interrupt();
+        lobby.arreter();
+        tables.values().forEach(table -> table.actor.arreter());
+        // les calculs d'équité en cours vont au bout de leur budget (EQUITY_MAX_BUDGET_MS au plus)
+        equityPool.shutdown();
+        try {
+            lobby.attendreArret(SHUTDOWN_DELAY);
+            for (PokerTable table : tables.values()) {
+                if (!table.actor.attendreArret(SHUTDOWN_DELAY)) {
+                    System.err.println("La table " + table.tableId + " ne s'est pas arrêtée à temps");
+                }
+            }
+            for (PokerTable table : tables.values()) {
+                if (table.history != null) {
+                    table.history.close();
+                }
+            }
+            historyWriter.shutdown();
+            if (!historyWriter.awaitTermination(SHUTDOWN_DELAY.toMillis(), TimeUnit.MILLISECONDS)) {
+                System.err.println("Historique incomplet : écritures encore en attente à l'arrêt");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        metrics.fermer();
+        outbound.fermer();
+        transport.close();
     }
 
     public static void main(String[] args) {
         try {
-            Publisher server = new Publisher();
+            // chargement des tables de rangs avant la première partie
+            TableRangs.instance();
+            // arguments facultatifs : adresse du broker (ou "local"), numéro du shard, nombre de shards
+            String broker = args.length > 0 ? args[0] : Transport.adresseParDefaut();
+            int shard = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+            int shards = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+            Publisher server = new Publisher(broker, shard, shards);
             
-            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-                try {
-                    if (server.mqttClient.isConnected()) {
-                        server.mqttClient.disconnect();
-                        server.mqttClient.close();
-                    }
-                } catch (MqttException e) {
-                    e.printStackTrace();
-                }
-            }));
-        } catch (MqttException e) {
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        } catch (IOException e) {
             System.err.println("Erreur lors du démarrage du serveur : " + e.getMessage());
             e.printStackTrace();
         }
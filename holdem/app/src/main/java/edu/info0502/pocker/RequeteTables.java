@@ -0,0 +1,115 @@
+package edu.info0502.pocker;
+
+import java.util.Comparator;
+
+// Filtre et page demandés avec LIST_TABLES (data facultatives) :
+//   "status" : "waiting" ou "playing", "minSeats" : places libres minimum, "admin" : administrateur,
+//   "limit" : taille de la page, "cursor" : valeur renvoyée avec la page précédente.
+// Les tables sont rendues de celle qui a le plus de places libres à celle qui en a le moins,
+// à égalité par identifiant ; le curseur est la position de la dernière table rendue dans cet ordre.
+final class RequeteTables {
+
+    static final int LIMITE_DEFAUT = 20;
+    static final int LIMITE_MAX = 100;
+    static final RequeteTables TOUTES = new RequeteTables(null, 0, null, LIMITE_DEFAUT, 0, null);
+
+    static final Comparator<FluxLobby.Table> ORDRE = (table1, table2) -> {
+        int libres = Integer.compare(table2.getLibres(), table1.getLibres());
+        return libres != 0 ? libres : table1.getTableId().compareTo(table2.getTableId());
+    };
+
+    // null : toutes les tables, sinon seulement celles en partie (ou en attente)
+    private final Boolean enCours;
+    private final int placesMin;
+    private final String admin;
+    private final int limite;
+    // dernière table de la page précédente, curseurId null pour la première page
+    private final int curseurLibres;
+    private final String curseurId;
+
+    private RequeteTables(Boolean enCours, int placesMin, String admin, int limite, int curseurLibres,
+            String curseurId) {
+        this.enCours = enCours;
+        this.placesMin = placesMin;
+        this.admin = admin;
+        this.limite = limite;
+        this.curseurLibres = curseurLibres;
+        this.curseurId = curseurId;
+    }
+
+    // valeurs telles que reçues, null si absentes ; IllegalArgumentException si l'une est invalide
+    static RequeteTables depuis(String status, String minSeats, String admin, String limit, String cursor) {
+        if (status == null && minSeats == null && admin == null && limit == null && cursor == null) {
+            return TOUTES;
+        }
+        Boolean enCours = null;
+        if (status != null && !status.isBlank()) {
+            switch (status.trim()) {
+                case "waiting":
+                    enCours = false;
+                    break;
+                case "playing":
+                    enCours = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Statut inconnu: " + status);
+            }
+        }
+        int placesMin = minSeats == null || minSeats.isBlank() ? 0 : Integer.parseInt(minSeats.trim());
+        int limite = limit == null || limit.isBlank() ? LIMITE_DEFAUT : Integer.parseInt(limit.trim());
+        if (limite < 1) {
+            throw new IllegalArgumentException("Taille de page invalide: " + limit);
+        }
+        int curseurLibres = 0;
+        String curseurId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            int separateur = cursor.indexOf(':');
+            if (separateur < 0) {
+                throw new IllegalArgumentException("Curseur invalide: " + cursor);
+            }
+            curseurLibres = Integer.parseInt(cursor.substring(0, separateur).trim());
+            curseurId = cursor.substring(separateur + 1).trim();
+        }
+        return new RequeteTables(enCours, Math.max(placesMin, 0), admin == null || admin.isBlank() ? null : admin.trim(),
+                Math.min(limite, LIMITE_MAX), curseurLibres, curseurId);
+    }
+
+    static String curseur(FluxLobby.Table table) {
+        return table.getLibres() + ":" + table.getTableId();
+    }
+
+    Boolean getEnCours() {
+        return enCours;
+    }
+
+    int getPlacesMin() {
+        return placesMin;
+    }
+
+    String getAdmin() {
+        return admin;
+    }
+
+    int getLimite() {
+        return limite;
+    }
+
+    boolean aCurseur() {
+        return curseurId != null;
+    }
+
+    int getCurseurLibres() {
+        return curseurLibres;
+    }
+
+    String getCurseurId() {
+        return curseurId;
+    }
+
+    // filtres qui ne sont pas déjà garantis par l'index parcouru
+    boolean accepte(FluxLobby.Table table) {
+        return (enCours == null || table.isInProgress() == enCours)
+                && table.getLibres() >= placesMin
+                && (admin == null || admin.equals(table.getAdmin()));
+    }
+}
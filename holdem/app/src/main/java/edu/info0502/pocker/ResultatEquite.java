@@ -0,0 +1,102 @@
+package edu.info0502.pocker;
+
+import java.util.List;
+
+// Résultat d'un calcul d'équité : pour chaque joueur, nombre de victoires seul,
+// nombre d'égalités et part du pot gagnée (1/n pour une égalité à n joueurs)
+class ResultatEquite {
+    private long essais;
+    private final long[] victoires;
+    private final long[] egalites;
+    private final double[] parts;
+
+    ResultatEquite(int nombreJoueurs) {
+        victoires = new long[nombreJoueurs];
+        egalites = new long[nombreJoueurs];
+        parts = new double[nombreJoueurs];
+    }
+
+    // enregistre un tableau joué, rangs[i] étant le rang final du joueur i
+    void enregistrer(int[] rangs) {
+        enregistrer(rangs, 0);
+    }
+
+    // même chose avec les rangs du tableau dans rangs[debut..debut + nombre de joueurs)
+    void enregistrer(int[] rangs, int debut) {
+        int joueurs = victoires.length;
+        int meilleur = 0;
+        int nombreMeilleurs = 0;
+        for (int i = debut; i < debut + joueurs; i++) {
+            int rang = rangs[i];
+            if (rang > meilleur) {
+                meilleur = rang;
+                nombreMeilleurs = 1;
+            } else if (rang == meilleur) {
+                nombreMeilleurs++;
+            }
+        }
+        double part = 1.0 / nombreMeilleurs;
+        for (int i = 0; i < joueurs; i++) {
+            if (rangs[debut + i] == meilleur) {
+                if (nombreMeilleurs == 1) {
+                    victoires[i]++;
+                } else {
+                    egalites[i]++;
+                }
+                parts[i] += part;
+            }
+        }
+        essais++;
+    }
+
+    ResultatEquite fusionner(ResultatEquite autre) {
+        essais += autre.essais;
+        for (int i = 0; i < victoires.length; i++) {
+            victoires[i] += autre.victoires[i];
+            egalites[i] += autre.egalites[i];
+            parts[i] += autre.parts[i];
+        }
+        return this;
+    }
+
+    public long getEssais() {
+        return essais;
+    }
+
+    public int getNombreJoueurs() {
+        return victoires.length;
+    }
+
+    public double getVictoire(int joueur) {
+        return essais == 0 ? 0 : (double) victoires[joueur] / essais;
+    }
+
+    public double getEgalite(int joueur) {
+        return essais == 0 ? 0 : (double) egalites[joueur] / essais;
+    }
+
+    public double getEquite(int joueur) {
+        return essais == 0 ? 0 : parts[joueur] / essais;
+    }
+
+    public String formater(List<String> noms) {
+        StringBuilder texte = new StringBuilder();
+        for (int i = 0; i < victoires.length; i++) {
+            if (i > 0) {
+                texte.append(", ");
+            }
+            texte.append(noms.get(i))
+                    .append(String.format(" %.1f%% (égalité %.1f%%)", 100 * getVictoire(i), 100 * getEgalite(i)));
+        }
+        return texte.toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texte = new StringBuilder("Équités sur ").append(essais).append(" essais:");
+        for (int i = 0; i < victoires.length; i++) {
+            texte.append(String.format(" [%d] %.2f%%", i, 100 * getEquite(i)));
+        }
+        return texte.toString();
+    }
+}
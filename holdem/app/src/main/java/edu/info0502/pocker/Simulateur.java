@@ -0,0 +1,153 @@
+package edu.info0502.pocker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Simulation sans MQTT de donnes complètes (distribution, flop, turn, river, abattage) sur tous
+// les cœurs. Chaque fil reçoit son propre générateur, issu de la graine par SplittableRandom.split
+// dans l'ordre des fils : à graine et nombre de fils égaux, les statistiques sont identiques.
+final class Simulateur {
+
+    private Simulateur() {
+    }
+
+    // statistiques d'une taille de table
+    static final class Statistiques {
+        final int joueurs;
+        long donnes;
+        long partages;
+        // combinaisons finales de tous les joueurs, et combinaison gagnante de chaque donne
+        final long[] combinaisons = new long[CombinaisonPoker.values().length];
+        final long[] combinaisonsGagnantes = new long[CombinaisonPoker.values().length];
+        // part des pots gagnée par chaque place (1/n en cas de partage)
+        final double[] partsParPlace;
+
+        Statistiques(int joueurs) {
+            this.joueurs = joueurs;
+            this.partsParPlace = new double[joueurs];
+        }
+
+        void enregistrer(Abattage abattage, List<String> noms) {
+            donnes++;
+            if (abattage.estPartage()) {
+                partages++;
+            }
+            combinaisonsGagnantes[abattage.getCombinaisonGagnante().ordinal()]++;
+            double part = 1.0 / abattage.getGagnants().size();
+            for (int place = 0; place < joueurs; place++) {
+                String nom = noms.get(place);
+                combinaisons[abattage.getCombinaison(nom).ordinal()]++;
+                if (abattage.estGagnant(nom)) {
+                    partsParPlace[place] += part;
+                }
+            }
+        }
+
+        Statistiques fusionner(Statistiques autre) {
+            donnes += autre.donnes;
+            partages += autre.partages;
+            for (int i = 0; i < combinaisons.length; i++) {
+                combinaisons[i] += autre.combinaisons[i];
+                combinaisonsGagnantes[i] += autre.combinaisonsGagnantes[i];
+            }
+            for (int i = 0; i < partsParPlace.length; i++) {
+                partsParPlace[i] += autre.partsParPlace[i];
+            }
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder texte = new StringBuilder();
+            texte.append(String.format("%d joueurs : %d donnes, pots partagés %.2f%%%n",
+                    joueurs, donnes, 100.0 * partages / donnes));
+            texte.append(String.format("  %-20s %10s %10s%n", "combinaison", "joueurs", "gagnante"));
+            for (CombinaisonPoker combinaison : CombinaisonPoker.values()) {
+                int i = combinaison.ordinal();
+                texte.append(String.format("  %-20s %9.4f%% %9.4f%%%n", combinaison,
+                        100.0 * combinaisons[i] / (donnes * joueurs), 100.0 * combinaisonsGagnantes[i] / donnes));
+            }
+            texte.append("  gains par place :");
+            for (int place = 0; place < joueurs; place++) {
+                texte.append(String.format(" %.2f%%", 100.0 * partsParPlace[place] / donnes));
+            }
+            return texte.append(System.lineSeparator()).toString();
+        }
+    }
+
+    // donnes jouées par un fil pour chaque taille de table
+    private static Statistiques[] simuler(int[] tailles, long donnes, SplittableRandom aleatoire) {
+        Statistiques[] statistiques = new Statistiques[tailles.length];
+        for (int t = 0; t < tailles.length; t++) {
+            List<String> noms = new ArrayList<>();
+            for (int i = 0; i < tailles[t]; i++) {
+                noms.add("joueur" + (i + 1));
+            }
+            PokerHoldem partie = new PokerHoldem(noms, aleatoire);
+            statistiques[t] = new Statistiques(tailles[t]);
+            for (long d = 0; d < donnes; d++) {
+                partie.demarrerPartie();
+                partie.distribuerFlop();
+                partie.distribuerTurn();
+                partie.distribuerRiver();
+                statistiques[t].enregistrer(partie.abattage(), noms);
+            }
+        }
+        return statistiques;
+    }
+
+    static Statistiques[] simuler(int[] tailles, long donnes, int fils, long graine)
+            throws InterruptedException, ExecutionException {
+        SplittableRandom racine = new SplittableRandom(graine);
+        ExecutorService executeur = Executors.newFixedThreadPool(fils);
+        try {
+            List<Future<Statistiques[]>> resultats = new ArrayList<>();
+            for (int f = 0; f < fils; f++) {
+                long donnesDuFil = donnes / fils + (f < donnes % fils ? 1 : 0);
+                SplittableRandom aleatoire = racine.split();
+                resultats.add(executeur.submit(() -> simuler(tailles, donnesDuFil, aleatoire)));
+            }
+            Statistiques[] total = resultats.get(0).get();
+            for (int f = 1; f < fils; f++) {
+                Statistiques[] partiel = resultats.get(f).get();
+                for (int t = 0; t < tailles.length; t++) {
+                    total[t].fusionner(partiel[t]);
+                }
+            }
+            return total;
+        } finally {
+            executeur.shutdown();
+        }
+    }
+
+    // arguments : donnes par taille de table, tailles (ex. 2,6,10), nombre de fils, graine
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        long donnes = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        String[] liste = (args.length > 1 ? args[1] : "2,6,10").split(",");
+        int fils = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long graine = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+        int[] tailles = new int[liste.length];
+        for (int i = 0; i < liste.length; i++) {
+            tailles[i] = Integer.parseInt(liste[i].trim());
+        }
+
+        TableRangs.instance();
+        long debut = System.nanoTime();
+        Statistiques[] statistiques = simuler(tailles, donnes, fils, graine);
+        double secondes = (System.nanoTime() - debut) / 1e9;
+
+        long total = 0;
+        for (Statistiques s : statistiques) {
+            System.out.print(s);
+            total += s.donnes;
+        }
+        System.out.printf("Simulation : %d donnes en %.2f s sur %d fils, %.0f donnes/s (graine %d)%n",
+                total, secondes, fils, total / secondes, graine);
+    }
+}
@@ -0,0 +1,93 @@
+package edu.info0502.pocker;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+// Découpage d'un calcul d'équité par Monte-Carlo en lots indépendants sur un ForkJoinPool, avec un budget
+// en essais ou en temps. Chaque lot a son propre SplittableRandom (issu de la graine par split, donc
+// reproductible) et ses propres compteurs, fusionnés à la fin. Les moteurs (EquiteMonteCarlo,
+// EquitePlages) ne fournissent que les essais eux-mêmes, par un Echantillonneur propre à chaque lot.
+final class SimulationParLots {
+
+    // nombre d'essais en dessous duquel un lot n'est plus découpé
+    private static final long TAILLE_LOT = 8192;
+    // nombre d'essais entre deux vérifications de l'échéance
+    static final int ESSAIS_ENTRE_VERIFICATIONS = 256;
+
+    interface Echantillonneur {
+        // joue essais tirages (au plus ESSAIS_ENTRE_VERIFICATIONS) et les enregistre dans resultat
+        void simuler(int essais, SplittableRandom aleatoire, ResultatEquite resultat);
+    }
+
+    private final ForkJoinPool pool;
+
+    SimulationParLots(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // budget en nombre d'essais ; echantillonneurs fournit l'état d'un lot (tampons, copie du paquet)
+    ResultatEquite simuler(int joueurs, Supplier<Echantillonneur> echantillonneurs, long essais, long graine) {
+        return pool.invoke(new Lot(joueurs, echantillonneurs, essais, Long.MAX_VALUE,
+                new SplittableRandom(graine), TAILLE_LOT));
+    }
+
+    // budget en temps : un lot par fil du pool, chacun tourne jusqu'à l'échéance ; un lot qui n'a pu
+    // démarrer qu'après (pool occupé par d'autres calculs) joue tout de même un bloc d'essais
+    ResultatEquite simulerPendant(int joueurs, Supplier<Echantillonneur> echantillonneurs, Duration budget) {
+        long echeance = System.nanoTime() + budget.toNanos();
+        long essaisParLot = Long.MAX_VALUE / pool.getParallelism();
+        return pool.invoke(new Lot(joueurs, echantillonneurs, essaisParLot * pool.getParallelism(), echeance,
+                new SplittableRandom(), essaisParLot));
+    }
+
+    private static final class Lot extends RecursiveTask<ResultatEquite> {
+        private static final long serialVersionUID = 1L;
+        private final int joueurs;
+        // un lot n'est jamais sérialisé : RecursiveTask n'est Serializable que par héritage
+        private final transient Supplier<Echantillonneur> echantillonneurs;
+        private final long essais;
+        private final long echeance;
+        private final transient SplittableRandom aleatoire;
+        private final long tailleLot;
+
+        Lot(int joueurs, Supplier<Echantillonneur> echantillonneurs, long essais, long echeance,
+                SplittableRandom aleatoire, long tailleLot) {
+            this.joueurs = joueurs;
+            this.echantillonneurs = echantillonneurs;
+            this.essais = essais;
+            this.echeance = echeance;
+            this.aleatoire = aleatoire;
+            this.tailleLot = tailleLot;
+        }
+
+        @Override
+        protected ResultatEquite compute() {
+            if (essais > tailleLot) {
+                long moitie = essais / 2;
+                Lot gauche = new Lot(joueurs, echantillonneurs, moitie, echeance, aleatoire.split(), tailleLot);
+                Lot droite = new Lot(joueurs, echantillonneurs, essais - moitie, echeance, aleatoire.split(), tailleLot);
+                gauche.fork();
+                ResultatEquite resultat = droite.compute();
+                return resultat.fusionner(gauche.join());
+            }
+            return simuler();
+        }
+
+        private ResultatEquite simuler() {
+            Echantillonneur echantillonneur = echantillonneurs.get();
+            ResultatEquite resultat = new ResultatEquite(joueurs);
+            for (long essai = 0; essai < essais; ) {
+                if (essai > 0 && echeance != Long.MAX_VALUE && System.nanoTime() - echeance >= 0) {
+                    break;
+                }
+                int bloc = (int) Math.min(ESSAIS_ENTRE_VERIFICATIONS, essais - essai);
+                echantillonneur.simuler(bloc, aleatoire, resultat);
+                essai += bloc;
+            }
+            return resultat;
+        }
+    }
+}
@@ -1,46 +1,46 @@
 package edu.info0502.pocker;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Scanner;
 
-import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
-import org.eclipse.paho.client.mqttv3.MqttCallback;
-import org.eclipse.paho.client.mqttv3.MqttClient;
-import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
-import org.eclipse.paho.client.mqttv3.MqttException;
-import org.eclipse.paho.client.mqttv3.MqttMessage;
-
 import com.google.gson.Gson;
 
 public class Subscriber {
-    private static final String MQTT_BROKER = "tcp://10.11.18.72:1883";
     private static final String GAME_TOPIC = "poker/game/#";
     private static final String PLAYER_TOPIC_PREFIX = "poker/player/";
     
-    private final MqttClient mqttClient;
+    private final Transport transport;
     private final String playerName;
     private final Gson gson = new Gson();
     private String currentTableId = null;
+    // passe à vrai quand le serveur accepte le protocole binaire (voir ProtocoleBinaire)
+    private volatile boolean binary = false;
+    // copie locale du lobby de chaque shard (voir FluxLobby)
+    private final Map<Integer, FluxLobby> lobby = new HashMap<>();
     private final Scanner scanner = new Scanner(System.in);
 
-    public Subscriber(String playerName) throws MqttException {
+    public Subscriber(String playerName) throws IOException {
+        this(playerName, Transport.connecter(Transport.adresseParDefaut(), "client-" + playerName));
+    }
+
+    public Subscriber(String playerName, Transport transport) {
         this.playerName = playerName;
-        this.mqttClient = new MqttClient(MQTT_BROKER, 
-            "client-" + playerName + "-" + MqttClient.generateClientId(), null);
-        
-        MqttConnectOptions options = new MqttConnectOptions();
-        options.setCleanSession(true);
-        options.setAutomaticReconnect(true);
-        
-        mqttClient.connect(options);
-        mqttClient.setCallback(new MqttCallbackAdapter());
+        this.transport = transport;
+        transport.setReception(new MessageHandler());
         
         // subscribe a une topic spécifique
-        mqttClient.subscribe(GAME_TOPIC);
-        mqttClient.subscribe(PLAYER_TOPIC_PREFIX + playerName);
+        transport.abonner(GAME_TOPIC, PLAYER_TOPIC_PREFIX + playerName, FluxLobby.DELTAS, FluxLobby.SNAPSHOTS).join();
         
         System.out.println("Client connecté pour le joueur: " + playerName);
+
+        // annonce en JSON : un serveur qui ne connaît pas le binaire l'ignore
+        Map<String, String> data = new HashMap<>();
+        data.put("player", playerName);
+        data.put("version", String.valueOf(ProtocoleBinaire.VERSION));
+        publishMessage("poker/game", new MessagePayload("HELLO", data));
     }
 
     public void start() {
@@ -67,6 +67,9 @@ public class Subscriber {
                         closeTable();
                         break;
                     case "6":
+                        computeEquity();
+                        break;
+                    case "7":
                         running = false;
                         break;
                     default:
@@ -87,11 +90,12 @@ public class Subscriber {
         System.out.println("3. Rejoindre une table");
         System.out.println("4. Démarrer une partie");
         System.out.println("5. Fermer la table");
-        System.out.println("6. Quitter");
+        System.out.println("6. Calculer une équité");
+        System.out.println("7. Quitter");
         System.out.print("Votre choix: ");
     }
 
-    private void createTable() throws MqttException {
+    private void createTable() {
         Map<String, String> data = new HashMap<>();
         data.put("player", playerName);
         
@@ -99,15 +103,24 @@ public class Subscriber {
         publishMessage("poker/game", payload);
     }
 
-    private void listTables() throws MqttException {
+    private void listTables() {
+        System.out.print("Filtres (ex: status=waiting minSeats=2 admin=bob limit=20 cursor=..., vide pour tout): ");
+        String filters = scanner.nextLine().trim();
+
         Map<String, String> data = new HashMap<>();
         data.put("player", playerName);
+        for (String filter : filters.split("\\s+")) {
+            int equals = filter.indexOf('=');
+            if (equals > 0) {
+                data.put(filter.substring(0, equals), filter.substring(equals + 1));
+            }
+        }
         
         MessagePayload payload = new MessagePayload("LIST_TABLES", data);
         publishMessage("poker/game", payload);
     }
 
-    private void joinTable() throws MqttException {
+    private void joinTable() {
         System.out.print("Entrez l'ID de la table à rejoindre: ");
         String tableId = scanner.nextLine().trim();
         
@@ -121,7 +134,7 @@ public class Subscriber {
         currentTableId = tableId;
     }
 
-    private void startGame() throws MqttException {
+    private void startGame() {
         if (currentTableId == null) {
             System.out.println("Vous n'êtes à aucune table");
             return;
@@ -129,12 +142,14 @@ public class Subscriber {
         
         Map<String, String> data = new HashMap<>();
         data.put("player", playerName);
+        // permet au serveur (ou au shard) qui possède la table de reconnaître la commande
+        data.put("tableId", currentTableId);
         
         MessagePayload payload = new MessagePayload("START_GAME", data);
         publishMessage("poker/game", payload);
     }
 
-    private void closeTable() throws MqttException {
+    private void closeTable() {
         if (currentTableId == null) {
             System.out.println("Vous n'êtes à aucune table");
             return;
@@ -150,51 +165,79 @@ public class Subscriber {
         currentTableId = null;
     }
 
-    private void publishMessage(String topic, MessagePayload payload) throws MqttException {
-        String json = gson.toJson(payload);
-        MqttMessage message = new MqttMessage(json.getBytes());
-        message.setQos(1);
-        mqttClient.publish(topic, message);
+    private void computeEquity() {
+        System.out.print("Plages séparées par '|' (ex: QQ+, AKs | top 20%): ");
+        String ranges = scanner.nextLine().trim();
+        System.out.print("Cartes communes (ex: Ah7d2c, vide si aucune): ");
+        String board = scanner.nextLine().trim();
+
+        Map<String, String> data = new HashMap<>();
+        data.put("player", playerName);
+        data.put("ranges", ranges);
+        data.put("board", board);
+
+        MessagePayload payload = new MessagePayload("EQUITY", data);
+        publishMessage("poker/game", payload);
+    }
+
+    private void publishMessage(String topic, MessagePayload payload) {
+        byte[] content = binary
+                ? ProtocoleBinaire.encoderCommande(payload.type, payload.data)
+                : gson.toJson(payload).getBytes(StandardCharsets.UTF_8);
+        transport.publier(topic, content, false).exceptionally(e -> {
+            System.err.println("Erreur lors de l'envoi: " + e.getMessage());
+            return null;
+        });
     }
 
     private void disconnect() {
-        try {
-            if (mqttClient.isConnected()) {
-                mqttClient.disconnect();
-                mqttClient.close();
-            }
-            scanner.close();
-        } catch (MqttException e) {
-            System.err.println("Erreur lors de la déconnexion: " + e.getMessage());
-        }
+        transport.close();
+        scanner.close();
     }
 
-    private class MqttCallbackAdapter implements MqttCallback {
+    // reconnexion et abonnements sont gérés par le transport (voir TransportMqtt)
+    private class MessageHandler implements Transport.Reception {
         @Override
-        public void connectionLost(Throwable cause) {
-            System.out.println("Connexion perdue. Tentative de reconnexion...");
-            while (!mqttClient.isConnected()) {
-                try {
-                    mqttClient.reconnect();
-                    mqttClient.subscribe(GAME_TOPIC);
-                    mqttClient.subscribe(PLAYER_TOPIC_PREFIX + playerName);
-                    System.out.println("Reconnecté !");
-                    break;
-                } catch (MqttException e) {
-                    System.err.println("Échec de reconnexion: " + e.getMessage());
-                    try {
-                        Thread.sleep(5000);
-                    } catch (InterruptedException ex) {
-                        ex.printStackTrace();
-                    }
+        public void recevoir(String topic, byte[] payload) {
+            if (topic.equals(PLAYER_TOPIC_PREFIX + playerName)
+                    && ProtocoleBinaire.code(payload) == ProtocoleBinaire.BIENVENUE) {
+                binary = true;
+            }
+            // le serveur regroupe les messages d'un même topic (voir EnvoiMqtt), en texte ou en binaire
+            for (String content : ProtocoleBinaire.decoderMessages(payload)) {
+                if (topic.startsWith(FluxLobby.TOPIC_PREFIX)) {
+                    lobbyMessage(topic, content);
+                } else {
+                    afficher(topic, content);
                 }
             }
         }
 
-        @Override
-        public void messageArrived(String topic, MqttMessage message) {
-            String content = new String(message.getPayload());
-        
+        // applique le delta à la copie locale ; après une lacune on relit les instantanés retenus
+        private void lobbyMessage(String topic, String content) {
+            if (topic.endsWith(FluxLobby.SNAPSHOT_SUFFIX)) {
+                FluxLobby.Instantane snapshot = gson.fromJson(content, FluxLobby.Instantane.class);
+                lobby.computeIfAbsent(snapshot.getShard(), FluxLobby::new).appliquer(snapshot);
+                return;
+            }
+            FluxLobby.Delta delta = gson.fromJson(content, FluxLobby.Delta.class);
+            if (!lobby.computeIfAbsent(delta.getShard(), FluxLobby::new).appliquer(delta)) {
+                transport.abonner(FluxLobby.SNAPSHOTS).exceptionally(e -> {
+                    System.err.println("Échec de resynchronisation du lobby: " + e.getMessage());
+                    return null;
+                });
+            }
+            if (delta.getNature() == FluxLobby.Nature.RETRAIT) {
+                System.out.println("🎮 Table " + delta.getTableId() + " fermée");
+            } else {
+                FluxLobby.Table table = delta.getTable();
+                System.out.println("🎮 Table " + table.getTableId() + ": " + table.getPlayers() + "/"
+                        + table.getSeats() + " joueurs"
+                        + (table.isInProgress() ? " (partie en cours)" : ""));
+            }
+        }
+
+        private void afficher(String topic, String content) {
             if (topic.startsWith("poker/game")) {
                 System.out.println("🎮 " + content);
             } 
@@ -202,12 +245,10 @@ public class Subscriber {
                 System.out.println("📨 Message personnel: " + content);
             }
         }
-
-        @Override
-        public void deliveryComplete(IMqttDeliveryToken token) {}
     }
 
-    private static class MessagePayload {
+    // réutilisé par GenerateurCharge
+    static class MessagePayload {
         private final String type;
         private final Map<String, String> data;
 
@@ -223,9 +264,12 @@ public class Subscriber {
             Scanner scanner = new Scanner(System.in);
             String playerName = scanner.nextLine().trim();
             
-            Subscriber client = new Subscriber(playerName);
+            // argument facultatif : adresse du broker
+            Subscriber client = args.length > 0
+                    ? new Subscriber(playerName, Transport.connecter(args[0], "client-" + playerName))
+                    : new Subscriber(playerName);
             client.start();
-        } catch (MqttException e) {
+        } catch (IOException e) {
             System.err.println("Erreur lors du démarrage du client: " + e.getMessage());
             e.printStackTrace();
         }
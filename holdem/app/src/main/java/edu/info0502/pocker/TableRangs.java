@@ -0,0 +1,204 @@
+package edu.info0502.pocker;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Tables de rangs précalculées pour 5 à 7 cartes, lues depuis un fichier binaire projeté en mémoire.
+// Les mains avec couleur sont indexées par le masque des 13 valeurs de la couleur, les autres
+// par un hachage parfait du nombre de cartes de chaque valeur (suite de 13 chiffres entre 0 et 4).
+// Les rangs stockés sont ceux d'EvaluateurMain, les deux évaluateurs sont donc interchangeables.
+final class TableRangs {
+
+    static final String FICHIER_PAR_DEFAUT = "rangs.bin";
+    static final String PROPRIETE_FICHIER = "pocker.tablesRangs";
+
+    private static final int MAGIQUE = 0x52414E47; // "RANG"
+    private static final int VERSION = 1;
+    private static final int TAILLE_ENTETE = 4 * Integer.BYTES;
+    private static final int NB_VALEURS = 13;
+    private static final int MAX_CARTES = 7;
+    private static final int TAILLE_COULEURS = 1 << NB_VALEURS;
+
+    // SUITES[l][k] : nombre de suites de l chiffres entre 0 et 4 dont la somme vaut k
+    private static final int[][] SUITES = new int[NB_VALEURS + 1][MAX_CARTES + 1];
+    // PREFIXES[(c * 13 + l) * 8 + k] : nombre de suites qui précèdent le chiffre c suivi de l positions
+    private static final int[] PREFIXES = new int[5 * NB_VALEURS * (MAX_CARTES + 1)];
+    // début de la zone de la table sans couleur pour chaque nombre de cartes
+    private static final int[] DEBUTS = new int[MAX_CARTES + 1];
+    private static final int TAILLE_SANS_COULEUR;
+
+    static {
+        SUITES[0][0] = 1;
+        for (int l = 1; l <= NB_VALEURS; l++) {
+            for (int k = 0; k <= MAX_CARTES; k++) {
+                for (int c = 0; c <= 4 && c <= k; c++) {
+                    SUITES[l][k] += SUITES[l - 1][k - c];
+                }
+            }
+        }
+        for (int c = 0; c <= 4; c++) {
+            for (int l = 0; l < NB_VALEURS; l++) {
+                for (int k = 0; k <= MAX_CARTES; k++) {
+                    int total = 0;
+                    for (int x = 0; x < c && x <= k; x++) {
+                        total += SUITES[l][k - x];
+                    }
+                    PREFIXES[(c * NB_VALEURS + l) * (MAX_CARTES + 1) + k] = total;
+                }
+            }
+        }
+        int taille = 0;
+        for (int n = Main.getTailleMain(); n <= MAX_CARTES; n++) {
+            DEBUTS[n] = taille;
+            taille += SUITES[NB_VALEURS][n];
+        }
+        TAILLE_SANS_COULEUR = taille;
+    }
+
+    private static volatile TableRangs instance;
+    private static volatile boolean chargementTente;
+
+    private final IntBuffer couleurs;
+    private final IntBuffer sansCouleur;
+
+    private TableRangs(IntBuffer couleurs, IntBuffer sansCouleur) {
+        this.couleurs = couleurs;
+        this.sansCouleur = sansCouleur;
+    }
+
+    // table chargée au premier appel, null si le fichier n'existe pas
+    static TableRangs instance() {
+        if (!chargementTente) {
+            synchronized (TableRangs.class) {
+                if (!chargementTente) {
+                    instance = charger(Paths.get(System.getProperty(PROPRIETE_FICHIER, FICHIER_PAR_DEFAUT)));
+                    chargementTente = true;
+                }
+            }
+        }
+        return instance;
+    }
+
+    static boolean disponible() {
+        return instance() != null;
+    }
+
+    static TableRangs charger(Path fichier) {
+        if (!Files.isReadable(fichier)) {
+            System.out.println("Tables de rangs absentes (" + fichier + "), évaluation sans table");
+            return null;
+        }
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            MappedByteBuffer tampon = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            IntBuffer entiers = tampon.asIntBuffer();
+            if (entiers.get(0) != MAGIQUE || entiers.get(1) != VERSION
+                    || entiers.get(2) != TAILLE_COULEURS || entiers.get(3) != TAILLE_SANS_COULEUR) {
+                System.err.println("Fichier de tables de rangs invalide : " + fichier);
+                return null;
+            }
+            int debut = TAILLE_ENTETE / Integer.BYTES;
+            IntBuffer couleurs = entiers.slice(debut, TAILLE_COULEURS);
+            IntBuffer sansCouleur = entiers.slice(debut + TAILLE_COULEURS, TAILLE_SANS_COULEUR);
+            System.out.println("Tables de rangs chargées depuis " + fichier);
+            return new TableRangs(couleurs, sansCouleur);
+        } catch (IOException | IndexOutOfBoundsException e) {
+            System.err.println("Erreur lors du chargement des tables de rangs : " + e.getMessage());
+            return null;
+        }
+    }
+
+    // rang de 5 à 7 cartes, identique à EvaluateurMain.evaluer
+    int evaluer(long masque) {
+        int coeur = EvaluateurMain.couleur(masque, Couleur.COEUR.ordinal());
+        int carreau = EvaluateurMain.couleur(masque, Couleur.CARREAU.ordinal());
+        int pique = EvaluateurMain.couleur(masque, Couleur.PIQUE.ordinal());
+        int trefle = EvaluateurMain.couleur(masque, Couleur.TREFLE.ordinal());
+
+        if (Integer.bitCount(coeur) >= 5) return couleurs.get(coeur);
+        if (Integer.bitCount(carreau) >= 5) return couleurs.get(carreau);
+        if (Integer.bitCount(pique) >= 5) return couleurs.get(pique);
+        if (Integer.bitCount(trefle) >= 5) return couleurs.get(trefle);
+
+        int restantes = Long.bitCount(masque);
+        int index = DEBUTS[restantes];
+        for (int v = NB_VALEURS - 1; v >= 0 && restantes > 0; v--) {
+            int nombre = ((coeur >>> v) & 1) + ((carreau >>> v) & 1) + ((pique >>> v) & 1) + ((trefle >>> v) & 1);
+            index += PREFIXES[(nombre * NB_VALEURS + v) * (MAX_CARTES + 1) + restantes];
+            restantes -= nombre;
+        }
+        return sansCouleur.get(index);
+    }
+
+    static void generer(Path fichier) throws IOException {
+        int[] sansCouleur = new int[TAILLE_SANS_COULEUR];
+        int[] nombres = new int[NB_VALEURS];
+        for (int n = Main.getTailleMain(); n <= MAX_CARTES; n++) {
+            remplir(sansCouleur, nombres, NB_VALEURS - 1, n, n);
+        }
+
+        try (OutputStream fluxFichier = Files.newOutputStream(fichier);
+             DataOutputStream sortie = new DataOutputStream(new BufferedOutputStream(fluxFichier))) {
+            sortie.writeInt(MAGIQUE);
+            sortie.writeInt(VERSION);
+            sortie.writeInt(TAILLE_COULEURS);
+            sortie.writeInt(TAILLE_SANS_COULEUR);
+            for (int valeurs = 0; valeurs < TAILLE_COULEURS; valeurs++) {
+                sortie.writeInt(Integer.bitCount(valeurs) >= 5 ? EvaluateurMain.evaluerCouleur(valeurs) : 0);
+            }
+            for (int rang : sansCouleur) {
+                sortie.writeInt(rang);
+            }
+        }
+    }
+
+    // parcourt toutes les répartitions de n cartes sur les valeurs, de l'as vers le deux
+    private static void remplir(int[] table, int[] nombres, int v, int restantes, int n) {
+        if (v < 0) {
+            if (restantes == 0) {
+                table[indexer(nombres, n)] = evaluerNombres(nombres);
+            }
+            return;
+        }
+        for (int c = 0; c <= 4 && c <= restantes; c++) {
+            nombres[v] = c;
+            remplir(table, nombres, v - 1, restantes - c, n);
+        }
+        nombres[v] = 0;
+    }
+
+    private static int indexer(int[] nombres, int n) {
+        int index = DEBUTS[n];
+        int restantes = n;
+        for (int v = NB_VALEURS - 1; v >= 0 && restantes > 0; v--) {
+            index += PREFIXES[(nombres[v] * NB_VALEURS + v) * (MAX_CARTES + 1) + restantes];
+            restantes -= nombres[v];
+        }
+        return index;
+    }
+
+    private static int evaluerNombres(int[] nombres) {
+        int auMoins1 = 0, auMoins2 = 0, auMoins3 = 0, quatre = 0;
+        for (int v = 0; v < NB_VALEURS; v++) {
+            if (nombres[v] >= 1) auMoins1 |= 1 << v;
+            if (nombres[v] >= 2) auMoins2 |= 1 << v;
+            if (nombres[v] >= 3) auMoins3 |= 1 << v;
+            if (nombres[v] == 4) quatre |= 1 << v;
+        }
+        return EvaluateurMain.evaluerSansCouleur(auMoins1, auMoins2, auMoins3, quatre);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path fichier = Paths.get(args.length > 0 ? args[0] : FICHIER_PAR_DEFAUT);
+        generer(fichier);
+        System.out.println("Tables de rangs écrites dans " + fichier + " (" + Files.size(fichier) + " octets)");
+    }
+}
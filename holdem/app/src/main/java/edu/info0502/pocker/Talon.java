@@ -1,39 +1,76 @@
 package edu.info0502.pocker;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 
+// Le talon ne garde que les indices des cartes (voir Carte.parIndice) et un curseur de tirage :
+// tirer une carte avance le curseur, mélanger permute les cartes restantes sur place.
 class Talon {
-    private List<Carte> cartes;
+    private final byte[] cartes;
+    // null : ThreadLocalRandom du fil qui mélange
+    private final RandomGenerator aleatoire;
+    private int curseur;
 
     public Talon(int nombrePaquets) {
-        cartes = new ArrayList<>();
-        for (int i = 0; i < nombrePaquets; i++) {
-            PaquetDeCartes paquet = new PaquetDeCartes();
-            cartes.addAll(paquet.getCartes());
+        this(nombrePaquets, null);
+    }
+
+    // générateur fourni pour des parties reproductibles (simulations)
+    public Talon(int nombrePaquets, RandomGenerator aleatoire) {
+        this.aleatoire = aleatoire;
+        cartes = new byte[nombrePaquets * Carte.NOMBRE_CARTES];
+        for (int i = 0; i < cartes.length; i++) {
+            cartes[i] = (byte) (i % Carte.NOMBRE_CARTES);
         }
         melanger();
     }
 
+    // mélange de Fisher-Yates des cartes non encore tirées
     public void melanger() {
-        Collections.shuffle(cartes);
+        RandomGenerator aleatoire = this.aleatoire != null ? this.aleatoire : ThreadLocalRandom.current();
+        for (int i = cartes.length - 1; i > curseur; i--) {
+            int j = curseur + aleatoire.nextInt(i - curseur + 1);
+            byte carte = cartes[i];
+            cartes[i] = cartes[j];
+            cartes[j] = carte;
+        }
+    }
+
+    // remet toutes les cartes dans le talon puis mélange
+    public void reinitialiser() {
+        curseur = 0;
+        melanger();
     }
 
     public Carte tirerCarte() {
-        if (cartes.isEmpty()) {
+        if (curseur == cartes.length) {
             throw new IllegalStateException("Le talon est vide");
         }
-        return cartes.remove(0);
+        return Carte.parIndice(cartes[curseur++]);
+    }
+
+    // masque (voir Carte.getMasque) des cartes encore dans le talon
+    public long masqueCartes() {
+        long masque = 0L;
+        for (int i = curseur; i < cartes.length; i++) {
+            masque |= 1L << cartes[i];
+        }
+        return masque;
     }
 
     public int nombreCartes() {
-        return cartes.size();
+        return cartes.length - curseur;
     }
 
     @Override
     public String toString() {
-        return cartes.toString();
+        List<Carte> restantes = new ArrayList<>();
+        for (int i = curseur; i < cartes.length; i++) {
+            restantes.add(Carte.parIndice(cartes[i]));
+        }
+        return restantes.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package edu.info0502.pocker;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+// Ce dont le serveur et les clients ont besoin d'un broker : publier, s'abonner (filtres MQTT + et #,
+// messages retenus) et recevoir. Deux implémentations : TransportMqtt (Paho, broker réseau) et
+// BusLocal (dans la JVM, sans socket ni copie), choisies par l'adresse passée à connecter.
+interface Transport extends AutoCloseable {
+
+    // adresse du bus en mémoire partagé par la JVM
+    String LOCAL = "local";
+
+    @FunctionalInterface
+    interface Reception {
+        // le contenu n'appartient pas au destinataire : il ne doit pas le modifier
+        void recevoir(String topic, byte[] contenu);
+    }
+
+    // à fixer avant le premier abonnement
+    void setReception(Reception reception);
+
+    CompletableFuture<Void> abonner(String... filtres);
+
+    CompletableFuture<Void> desabonner(String filtre);
+
+    // échoue avec IllegalArgumentException si le topic est invalide (inutile de réessayer)
+    CompletableFuture<Void> publier(String topic, byte[] contenu, boolean retenu);
+
+    @Override
+    void close();
+
+    // "local" pour le bus en mémoire, sinon l'URI d'un broker MQTT (tcp://hote:port)
+    static Transport connecter(String adresse, String client) throws IOException {
+        if (LOCAL.equals(adresse)) {
+            return BusLocal.partage().connecter(client);
+        }
+        return TransportMqtt.connecter(adresse, client);
+    }
+
+    // -Dpocker.broker, sinon la variable d'environnement POCKER_BROKER, sinon le broker de la salle de TP
+    static String adresseParDefaut() {
+        String adresse = System.getProperty("pocker.broker", System.getenv("POCKER_BROKER"));
+        return adresse != null ? adresse : "tcp://10.11.18.72:1883";
+    }
+}
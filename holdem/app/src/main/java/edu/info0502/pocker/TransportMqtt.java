@@ -0,0 +1,141 @@
+package edu.info0502.pocker;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttCallbackExtended;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+
+// Transport sur un broker MQTT avec le client asynchrone de Paho. Paho se reconnecte seul ;
+// la session n'étant pas conservée, les abonnements sont refaits à chaque reconnexion.
+final class TransportMqtt implements Transport {
+
+    private static final int QOS = 1;
+
+    private final MqttAsyncClient client;
+    private final Set<String> abonnements = ConcurrentHashMap.newKeySet();
+    private volatile Reception reception = (topic, contenu) -> { };
+
+    private TransportMqtt(MqttAsyncClient client) {
+        this.client = client;
+    }
+
+    static TransportMqtt connecter(String broker, String nomClient) throws IOException {
+        try {
+            MqttAsyncClient client = new MqttAsyncClient(broker, nomClient + "-" + MqttAsyncClient.generateClientId(),
+                    null);
+            TransportMqtt transport = new TransportMqtt(client);
+            MqttConnectOptions options = new MqttConnectOptions();
+            options.setCleanSession(true);
+            options.setKeepAliveInterval(60);
+            options.setAutomaticReconnect(true);
+            options.setMaxInflight(EnvoiMqtt.FENETRE);
+            client.setCallback(transport.new Rappels());
+            client.connect(options).waitForCompletion();
+            return transport;
+        } catch (MqttException e) {
+            throw new IOException("Connexion impossible au broker " + broker + " : " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void setReception(Reception reception) {
+        this.reception = reception;
+    }
+
+    @Override
+    public CompletableFuture<Void> abonner(String... filtres) {
+        abonnements.addAll(Set.of(filtres));
+        int[] qos = new int[filtres.length];
+        Arrays.fill(qos, QOS);
+        return suivre(ecoute -> client.subscribe(filtres, qos, null, ecoute));
+    }
+
+    @Override
+    public CompletableFuture<Void> desabonner(String filtre) {
+        abonnements.remove(filtre);
+        return suivre(ecoute -> client.unsubscribe(filtre, null, ecoute));
+    }
+
+    @Override
+    public CompletableFuture<Void> publier(String topic, byte[] contenu, boolean retenu) {
+        MqttMessage message = new MqttMessage(contenu);
+        message.setQos(QOS);
+        message.setRetained(retenu);
+        return suivre(ecoute -> client.publish(topic, message, null, ecoute));
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (client.isConnected()) {
+                client.disconnect().waitForCompletion();
+            }
+            client.close();
+        } catch (MqttException e) {
+            System.err.println("Erreur lors de la déconnexion : " + e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void lancer(IMqttActionListener ecoute) throws MqttException;
+    }
+
+    // résultat de l'opération Paho, y compris ses erreurs immédiates (topic invalide, client déconnecté)
+    private static CompletableFuture<Void> suivre(Operation operation) {
+        CompletableFuture<Void> resultat = new CompletableFuture<>();
+        try {
+            operation.lancer(new IMqttActionListener() {
+                @Override
+                public void onSuccess(IMqttToken token) {
+                    resultat.complete(null);
+                }
+
+                @Override
+                public void onFailure(IMqttToken token, Throwable erreur) {
+                    resultat.completeExceptionally(erreur);
+                }
+            });
+        } catch (MqttException | RuntimeException e) {
+            resultat.completeExceptionally(e);
+        }
+        return resultat;
+    }
+
+    private class Rappels implements MqttCallbackExtended {
+        @Override
+        public void connectionLost(Throwable cause) {
+            System.out.println("Connexion MQTT perdue : " + cause.getMessage() + ", reconnexion...");
+        }
+
+        @Override
+        public void connectComplete(boolean reconnect, String serverURI) {
+            if (reconnect && !abonnements.isEmpty()) {
+                System.out.println("Reconnecté à " + serverURI);
+                abonner(abonnements.toArray(new String[0])).exceptionally(erreur -> {
+                    System.err.println("Échec des abonnements après reconnexion : " + erreur.getMessage());
+                    return null;
+                });
+            }
+        }
+
+        @Override
+        public void messageArrived(String topic, MqttMessage message) {
+            reception.recevoir(topic, message.getPayload());
+        }
+
+        @Override
+        public void deliveryComplete(IMqttDeliveryToken token) {
+        }
+    }
+}
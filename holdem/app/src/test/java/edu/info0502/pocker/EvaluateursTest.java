@@ -0,0 +1,191 @@
+package edu.info0502.pocker;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+// Les évaluateurs (EvaluateurMain, TableRangs, EtatMain, EvaluateurOmaha) comparés à une évaluation
+// naïve : chaque main de 5 cartes possible est classée en comptant ses valeurs, la meilleure l'emporte.
+public class EvaluateursTest {
+
+    private static final int MAINS = 50_000;
+    private static final long GRAINE = 20241;
+
+    private static Path fichierRangs;
+    private static TableRangs tableRangs;
+
+    @BeforeClass
+    public static void genererTableRangs() throws IOException {
+        fichierRangs = Files.createTempFile("rangs", ".bin");
+        TableRangs.generer(fichierRangs);
+        tableRangs = TableRangs.charger(fichierRangs);
+    }
+
+    @AfterClass
+    public static void supprimerTableRangs() throws IOException {
+        tableRangs = null;
+        Files.deleteIfExists(fichierRangs);
+    }
+
+    @Test
+    public void evaluateurMainEtTableRangs() {
+        Random hasard = new Random(GRAINE);
+        for (int nombre = 5; nombre <= 7; nombre++) {
+            for (int i = 0; i < MAINS; i++) {
+                long masque = tirer(hasard, nombre, 0L);
+                int attendu = reference(masque);
+                assertEquals(Long.toHexString(masque), attendu, EvaluateurMain.evaluer(masque));
+                assertEquals(Long.toHexString(masque), attendu, tableRangs.evaluer(masque));
+            }
+        }
+    }
+
+    @Test
+    public void etatMainCarteParCarte() {
+        Random hasard = new Random(GRAINE + 1);
+        EtatMain etat = new EtatMain();
+        for (int i = 0; i < MAINS; i++) {
+            long masque = tirer(hasard, 7, 0L);
+            etat.reinitialiser();
+            long ajoutees = 0L;
+            for (long reste = masque; reste != 0; reste &= reste - 1) {
+                long carte = reste & -reste;
+                etat.ajouter(Carte.parIndice(Long.numberOfTrailingZeros(carte)));
+                ajoutees |= carte;
+                if (Long.bitCount(ajoutees) >= Main.getTailleMain()) {
+                    assertEquals(Long.toHexString(ajoutees), reference(ajoutees), etat.getRang());
+                }
+            }
+            assertEquals(masque, etat.getMasque());
+        }
+    }
+
+    @Test
+    public void evaluateurOmaha() {
+        Random hasard = new Random(GRAINE + 2);
+        for (int i = 0; i < MAINS / 10; i++) {
+            long privees = tirer(hasard, 4, 0L);
+            long tableau = tirer(hasard, 3 + hasard.nextInt(3), privees);
+            int attendu = referenceOmaha(privees, tableau);
+            assertEquals(attendu, EvaluateurOmaha.evaluer(privees, tableau));
+            long meilleure = EvaluateurOmaha.meilleureMain(privees, tableau);
+            assertEquals(2, Long.bitCount(meilleure & privees));
+            assertEquals(3, Long.bitCount(meilleure & tableau));
+            assertEquals(attendu, reference(meilleure));
+        }
+    }
+
+    // nombre cartes au hasard, hors de exclues
+    private static long tirer(Random hasard, int nombre, long exclues) {
+        long masque = 0L;
+        while (Long.bitCount(masque) < nombre) {
+            long carte = 1L << hasard.nextInt(Carte.NOMBRE_CARTES);
+            if ((carte & exclues) == 0) {
+                masque |= carte;
+            }
+        }
+        return masque;
+    }
+
+    // meilleur rang parmi toutes les mains de 5 cartes du masque
+    private static int reference(long masque) {
+        int[] cartes = new int[Long.bitCount(masque)];
+        int n = 0;
+        for (long reste = masque; reste != 0; reste &= reste - 1) {
+            cartes[n++] = Long.numberOfTrailingZeros(reste);
+        }
+        int meilleur = 0;
+        for (int a = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++) {
+                for (int c = b + 1; c < n; c++) {
+                    for (int d = c + 1; d < n; d++) {
+                        for (int e = d + 1; e < n; e++) {
+                            meilleur = Math.max(meilleur,
+                                    referenceCinq(cartes[a], cartes[b], cartes[c], cartes[d], cartes[e]));
+                        }
+                    }
+                }
+            }
+        }
+        return meilleur;
+    }
+
+    // exactement 2 cartes privées et 3 communes
+    private static int referenceOmaha(long privees, long tableau) {
+        int meilleur = 0;
+        for (long p1 = privees; p1 != 0; p1 &= p1 - 1) {
+            for (long p2 = p1 & (p1 - 1); p2 != 0; p2 &= p2 - 1) {
+                long deux = (p1 & -p1) | (p2 & -p2);
+                for (long c1 = tableau; c1 != 0; c1 &= c1 - 1) {
+                    for (long c2 = c1 & (c1 - 1); c2 != 0; c2 &= c2 - 1) {
+                        for (long c3 = c2 & (c2 - 1); c3 != 0; c3 &= c3 - 1) {
+                            long main = deux | (c1 & -c1) | (c2 & -c2) | (c3 & -c3);
+                            meilleur = Math.max(meilleur, reference(main));
+                        }
+                    }
+                }
+            }
+        }
+        return meilleur;
+    }
+
+    // même codage que EvaluateurMain : combinaison au bit 20, puis les valeurs de départage sur 4 bits
+    // à partir du bit 16, rangées par nombre d'exemplaires puis par valeur
+    private static int referenceCinq(int... indices) {
+        int[] nombres = new int[13];
+        boolean couleur = true;
+        for (int indice : indices) {
+            nombres[indice % 13]++;
+            couleur &= indice / 13 == indices[0] / 13;
+        }
+        int[] departage = new int[5];
+        int n = 0;
+        for (int exemplaires = 4; exemplaires >= 1; exemplaires--) {
+            for (int valeur = 12; valeur >= 0; valeur--) {
+                if (nombres[valeur] == exemplaires) {
+                    departage[n++] = valeur;
+                }
+            }
+        }
+        int hauteurQuinte = -1;
+        if (n == 5) {
+            if (departage[0] - departage[4] == 4) {
+                hauteurQuinte = departage[0];
+            } else if (departage[0] == 12 && departage[1] == 3) {
+                // la roue : l'as compte pour un
+                hauteurQuinte = 3;
+            }
+        }
+
+        CombinaisonPoker combinaison;
+        if (hauteurQuinte >= 0) {
+            n = 1;
+            departage[0] = hauteurQuinte;
+            combinaison = !couleur ? CombinaisonPoker.QUINTE
+                    : hauteurQuinte == 12 ? CombinaisonPoker.QUINTE_FLUSH_ROYALE : CombinaisonPoker.QUINTE_FLUSH;
+        } else if (couleur) {
+            combinaison = CombinaisonPoker.COULEUR;
+        } else if (nombres[departage[0]] == 4) {
+            combinaison = CombinaisonPoker.CARRE;
+        } else if (nombres[departage[0]] == 3) {
+            combinaison = n == 2 ? CombinaisonPoker.FULL : CombinaisonPoker.BRELAN;
+        } else if (nombres[departage[0]] == 2) {
+            combinaison = n == 3 ? CombinaisonPoker.DEUX_PAIRES : CombinaisonPoker.PAIRE;
+        } else {
+            combinaison = CombinaisonPoker.CARTE_HAUTE;
+        }
+
+        int rang = combinaison.getValeur() << EvaluateurMain.DECALAGE_COMBINAISON;
+        for (int i = 0; i < n; i++) {
+            rang |= departage[i] << (16 - 4 * i);
+        }
+        return rang;
+    }
+}
@@ -0,0 +1,58 @@
+package edu.info0502.pocker;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+public class IterateurCombinaisonsTest {
+
+    @Test
+    public void parcourtDansLOrdreColexicographique() {
+        IterateurCombinaisons iterateur = new IterateurCombinaisons(4, 2);
+        int[][] attendues = {{0, 1}, {0, 2}, {1, 2}, {0, 3}, {1, 3}, {2, 3}};
+        int[] indices = new int[2];
+        for (int[] attendue : attendues) {
+            iterateur.suivante(indices);
+            assertArrayEquals(attendue, indices);
+        }
+        assertFalse(iterateur.suivante(indices));
+        assertEquals(6, iterateur.nombre());
+
+        iterateur.reinitialiser();
+        iterateur.suivante(indices);
+        assertArrayEquals(attendues[0], indices);
+    }
+
+    @Test
+    public void compteToutesLesCombinaisons() {
+        IterateurCombinaisons iterateur = new IterateurCombinaisons(52, 5);
+        int[] indices = new int[5];
+        long nombre = 0;
+        while (iterateur.suivante(indices)) {
+            nombre++;
+        }
+        assertEquals(2_598_960, nombre);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refuseTropDeCartes() {
+        new IterateurCombinaisons(53, 5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refuseTropDIndices() {
+        new IterateurCombinaisons(52, 8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refusePlusDIndicesQueDElements() {
+        new IterateurCombinaisons(3, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void binomialHorsDeLaTable() {
+        Combinaisons.binomial(60, 5);
+    }
+}
@@ -0,0 +1,60 @@
+package edu.info0502.pocker;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+// L'état d'évaluation du joueur doit suivre les cartes communes données, pas seulement leur nombre.
+public class JoueurTest {
+
+    private static CartesCommunes tableau(String cartes) {
+        CartesCommunes communes = new CartesCommunes();
+        for (Carte carte : PlageMains.parserCartes(cartes)) {
+            communes.ajouterCarte(carte);
+        }
+        return communes;
+    }
+
+    private static int rangAttendu(List<Carte> privees, CartesCommunes communes) {
+        long masque = 0L;
+        for (Carte carte : privees) {
+            masque |= carte.getMasque();
+        }
+        for (Carte carte : communes.getCartes()) {
+            masque |= carte.getMasque();
+        }
+        return EvaluateurMain.evaluer(masque);
+    }
+
+    @Test
+    public void tableauDeMemeTailleReevalue() {
+        List<Carte> privees = PlageMains.parserCartes("Ah Ad");
+        Joueur joueur = new Joueur("joueur");
+        joueur.recevoirCartesPrivees(privees);
+
+        CartesCommunes brelan = tableau("Ac Ks Qd 2h 3c");
+        joueur.evaluerMeilleureMain(brelan);
+        assertEquals(rangAttendu(privees, brelan), joueur.getRang());
+
+        CartesCommunes deuxPaires = tableau("Kc Kd 7s 8h 2c");
+        joueur.evaluerMeilleureMain(deuxPaires);
+        assertEquals(rangAttendu(privees, deuxPaires), joueur.getRang());
+        assertEquals(CombinaisonPoker.DEUX_PAIRES, EvaluateurMain.combinaison(joueur.getRang()));
+    }
+
+    @Test
+    public void etatIncrementalConserve() {
+        List<Carte> privees = PlageMains.parserCartes("9h 9d");
+        Joueur joueur = new Joueur("joueur");
+        joueur.recevoirCartesPrivees(privees);
+        CartesCommunes communes = tableau("9c 4s 4d Jh 2c");
+        for (Carte carte : communes.getCartes()) {
+            joueur.ajouterCarteCommune(carte);
+        }
+        joueur.evaluerMeilleureMain(communes);
+        assertEquals(rangAttendu(privees, communes), joueur.getRang());
+        assertEquals(CombinaisonPoker.FULL, EvaluateurMain.combinaison(joueur.getRang()));
+    }
+}
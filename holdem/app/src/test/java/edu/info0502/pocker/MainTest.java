@@ -0,0 +1,96 @@
+package edu.info0502.pocker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+// Ordre des mains de 5 cartes, en particulier les départages (paires, deux paires, full)
+// qui ne comparaient pas les bonnes cartes avant le rang entier de EvaluateurMain.
+public class MainTest {
+
+    private static Main main(String cartes) {
+        Main main = new Main();
+        main.ajouterCartes(PlageMains.parserCartes(cartes));
+        return main;
+    }
+
+    private static void assertPlusForte(String forte, String faible) {
+        assertTrue(forte + " doit battre " + faible, main(forte).comparerAvec(main(faible)) > 0);
+        assertTrue(faible + " doit perdre contre " + forte, main(faible).comparerAvec(main(forte)) < 0);
+    }
+
+    @Test
+    public void combinaisonsReconnues() {
+        assertEquals(CombinaisonPoker.CARTE_HAUTE, main("Ah Jd 8c 5s 3h").evaluerMain());
+        assertEquals(CombinaisonPoker.PAIRE, main("Kh Kd 8c 5s 3h").evaluerMain());
+        assertEquals(CombinaisonPoker.DEUX_PAIRES, main("Kh Kd 8c 8s 3h").evaluerMain());
+        assertEquals(CombinaisonPoker.BRELAN, main("Kh Kd Kc 5s 3h").evaluerMain());
+        assertEquals(CombinaisonPoker.QUINTE, main("Ah 2d 3c 4s 5h").evaluerMain());
+        assertEquals(CombinaisonPoker.COULEUR, main("Ah Jh 8h 5h 3h").evaluerMain());
+        assertEquals(CombinaisonPoker.FULL, main("Kh Kd Kc 5s 5h").evaluerMain());
+        assertEquals(CombinaisonPoker.CARRE, main("Kh Kd Kc Ks 5h").evaluerMain());
+        assertEquals(CombinaisonPoker.QUINTE_FLUSH, main("9s 8s 7s 6s 5s").evaluerMain());
+        assertEquals(CombinaisonPoker.QUINTE_FLUSH_ROYALE, main("As Ks Qs Js Ts").evaluerMain());
+    }
+
+    @Test
+    public void combinaisonsOrdonnees() {
+        String[] mains = {
+            "Ah Jd 8c 5s 3h", "2h 2d 8c 5s 3h", "2h 2d 3c 3s 5h", "2h 2d 2c 4s 5h", "Ah 2d 3c 4s 5h",
+            "7h 5h 4h 3h 2h", "2h 2d 2c 3s 3h", "2h 2d 2c 2s 3h", "5s 4s 3s 2s As", "As Ks Qs Js Ts"
+        };
+        for (int i = 1; i < mains.length; i++) {
+            assertPlusForte(mains[i], mains[i - 1]);
+        }
+    }
+
+    @Test
+    public void departagePaire() {
+        // même paire : les trois cartes restantes dans l'ordre
+        assertPlusForte("Kh Kd Ac 5s 3h", "Ks Kc Qh 9d 8c");
+        assertPlusForte("Kh Kd Ac 6s 3h", "Ks Kc Ah 5d 4c");
+        assertPlusForte("Kh Kd Ac 6s 4h", "Ks Kc Ah 6d 3c");
+        assertPlusForte("3h 3d 4c 5s 7h", "2h 2d Ac Ks Qh");
+    }
+
+    @Test
+    public void departageDeuxPaires() {
+        // la paire haute d'abord, même si l'autre main a la plus haute seconde paire
+        assertPlusForte("Ah Ad 3c 3s 2h", "Kh Kd Qc Qs Ah");
+        assertPlusForte("Ah Ad 4c 4s 2h", "As Ac 3h 3d Kh");
+        assertPlusForte("Ah Ad 4c 4s 6h", "As Ac 4h 4d 5h");
+    }
+
+    @Test
+    public void departageFull() {
+        // le brelan décide, la paire seulement à brelan égal
+        assertPlusForte("4h 4d 4c 2s 2h", "3h 3d 3c As Ah");
+        assertPlusForte("Qh Qd Qc 5s 5h", "Qs Qc Qd 4s 4h");
+    }
+
+    @Test
+    public void departageCarreEtBrelan() {
+        assertPlusForte("9h 9d 9c 9s 3h", "8h 8d 8c 8s Ah");
+        assertPlusForte("9h 9d 9c 9s Kh", "9h 9d 9c 9s Qh");
+        assertPlusForte("7h 7d 7c Ks 2h", "7h 7d 7c Qs Jh");
+        assertPlusForte("7h 7d 7c Ks 3h", "7h 7d 7c Ks 2h");
+    }
+
+    @Test
+    public void departageQuintesEtCouleurs() {
+        // la quinte à l'as (roue) est la plus basse
+        assertPlusForte("6h 5d 4c 3s 2h", "5h 4d 3c 2s Ah");
+        assertPlusForte("Ah Kd Qc Js Th", "Kh Qd Jc Ts 9h");
+        assertPlusForte("Ah Jh 8h 5h 3h", "Kd Qd Jd 9d 7d");
+        assertPlusForte("Ah Jh 8h 5h 4h", "Ad Jd 8d 5d 3d");
+    }
+
+    @Test
+    public void egalites() {
+        // les couleurs ne départagent pas
+        assertEquals(0, main("Ah Kd 9c 7s 4h").comparerAvec(main("As Kc 9h 7d 4c")));
+        assertEquals(0, main("Ah Ad 9c 9s 4h").comparerAvec(main("As Ac 9h 9d 4c")));
+        assertEquals(0, main("6h 5d 4c 3s 2h").comparerAvec(main("6s 5c 4h 3d 2c")));
+    }
+}
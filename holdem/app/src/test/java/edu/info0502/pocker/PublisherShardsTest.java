@@ -0,0 +1,215 @@
+package edu.info0502.pocker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+// Trois serveurs sur un même bus en mémoire : chaque commande doit être traitée par un seul shard,
+// celui de la table ou, sans table, celui du joueur.
+public class PublisherShardsTest {
+
+    private static final int SHARDS = 3;
+    private static final long DELAI_MS = 5000;
+    // temps laissé à un éventuel second shard pour répondre
+    private static final long SILENCE_MS = 300;
+
+    private static Path historique;
+
+    private final AnneauCoherent anneau = new AnneauCoherent(SHARDS);
+    private final Gson gson = new Gson();
+    private BusLocal bus;
+    private final List<Publisher> serveurs = new ArrayList<>();
+    private final List<Client> clients = new ArrayList<>();
+
+    @BeforeClass
+    public static void configurer() throws IOException {
+        // avant le chargement de Publisher, comme GenerateurCharge
+        historique = Files.createTempDirectory("historique");
+        System.setProperty("pocker.historique", historique.toString());
+        System.setProperty("pocker.traces", "false");
+    }
+
+    @AfterClass
+    public static void nettoyer() throws IOException {
+        try (Stream<Path> chemins = Files.walk(historique)) {
+            for (Path chemin : chemins.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(chemin);
+            }
+        }
+    }
+
+    @Before
+    public void demarrer() {
+        bus = new BusLocal();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            serveurs.add(new Publisher(bus.connecter("serveur-" + shard), shard, SHARDS));
+        }
+    }
+
+    @After
+    public void arreter() {
+        clients.forEach(Client::fermer);
+        serveurs.forEach(Publisher::close);
+    }
+
+    @Test
+    public void tableCreeeSurLeShardDuJoueur() throws InterruptedException {
+        for (int shard = 0; shard < SHARDS; shard++) {
+            Client admin = client("admin", shard);
+            String table = creerTable(admin);
+            assertEquals(shard, anneau.shard(table));
+            admin.aucun(Publisher.TABLE_CREATED);
+            // l'historique n'est ouvert qu'à la première donne
+            assertFalse(Files.exists(historique.resolve(table)));
+        }
+    }
+
+    @Test
+    public void joinEtStartEntreShards() throws InterruptedException {
+        Client admin = client("admin", 0);
+        Client joueur = client("joueur", 1);
+        String table = creerTable(admin);
+
+        joueur.envoyer(TypeCommande.JOIN_TABLE, Map.of("tableId", table));
+        assertNotNull(joueur.attendre(Publisher.TABLE_JOINED + table));
+        joueur.aucun(Publisher.TABLE_JOINED);
+
+        admin.envoyer(TypeCommande.START_GAME, Map.of("tableId", table));
+        assertNotNull(admin.attendre(Publisher.HOLE_CARDS));
+        assertNotNull(joueur.attendre(Publisher.HOLE_CARDS));
+        admin.aucun(Publisher.HOLE_CARDS);
+        joueur.aucun(Publisher.HOLE_CARDS);
+    }
+
+    // ancien client sans tableId : seul le shard de la table répond, pas celui du joueur
+    @Test
+    public void startSansTableTraiteParUnSeulShard() throws InterruptedException {
+        Client admin = client("admin", 0);
+        Client joueur = client("joueur", 2);
+        String table = creerTable(admin);
+        joueur.envoyer(TypeCommande.JOIN_TABLE, Map.of("tableId", table));
+        assertNotNull(joueur.attendre(Publisher.TABLE_JOINED));
+
+        joueur.envoyer(TypeCommande.START_GAME, Map.of());
+        assertNotNull(joueur.attendre(Publisher.ADMIN_ONLY));
+        joueur.aucun(Publisher.NO_TABLE);
+
+        admin.envoyer(TypeCommande.START_GAME, Map.of());
+        assertNotNull(admin.attendre(Publisher.HOLE_CARDS));
+        assertNotNull(joueur.attendre(Publisher.HOLE_CARDS));
+        admin.aucun(Publisher.HOLE_CARDS);
+    }
+
+    @Test
+    public void listeAgregeeDeTousLesShards() throws InterruptedException {
+        List<String> tables = new ArrayList<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            tables.add(creerTable(client("admin", shard)));
+        }
+        Client lecteur = client("lecteur", 1);
+
+        // les lobbys des autres shards arrivent par le bus : la liste finit par tout contenir
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DELAI_MS);
+        String liste;
+        do {
+            lecteur.envoyer(TypeCommande.LIST_TABLES, Map.of());
+            liste = lecteur.attendre(Publisher.TABLE_LIST);
+            assertNotNull(liste);
+            lecteur.aucun(Publisher.TABLE_LIST);
+        } while (!contientToutes(liste, tables) && System.nanoTime() < limite);
+        assertTrue(liste, contientToutes(liste, tables));
+    }
+
+    private static boolean contientToutes(String liste, List<String> tables) {
+        return tables.stream().allMatch(table -> liste.contains("Table " + table + " "));
+    }
+
+    private String creerTable(Client admin) throws InterruptedException {
+        admin.envoyer(TypeCommande.CREATE_TABLE, Map.of());
+        String reponse = admin.attendre(Publisher.TABLE_CREATED);
+        assertNotNull(reponse);
+        return reponse.substring(reponse.lastIndexOf(' ') + 1);
+    }
+
+    // premier nom de la forme prefixe-i dont le shard est celui demandé, et pas encore utilisé
+    private Client client(String prefixe, int shard) {
+        for (int i = 0; ; i++) {
+            String nom = prefixe + "-" + i;
+            if (anneau.shard(nom) == shard && clients.stream().noneMatch(client -> client.nom.equals(nom))) {
+                Client client = new Client(nom);
+                clients.add(client);
+                return client;
+            }
+        }
+    }
+
+    private class Client {
+        private final String nom;
+        private final Transport transport;
+        private final BlockingQueue<String> boite = new LinkedBlockingQueue<>();
+
+        Client(String nom) {
+            this.nom = nom;
+            transport = bus.connecter("client-" + nom);
+            transport.setReception((topic, contenu) -> boite.addAll(ProtocoleBinaire.decoderMessages(contenu)));
+            transport.abonner(Publisher.PLAYER_TOPIC_PREFIX + nom).join();
+        }
+
+        void envoyer(TypeCommande type, Map<String, String> champs) {
+            Map<String, String> data = new HashMap<>(champs);
+            data.put("player", nom);
+            transport.publier(Publisher.COMMAND_TOPIC, gson.toJson(new Subscriber.MessagePayload(type.name(), data))
+                    .getBytes(StandardCharsets.UTF_8), false).join();
+        }
+
+        // premier message commençant par attendu, les autres sont ignorés ; null après le délai
+        String attendre(String attendu) throws InterruptedException {
+            return attendre(attendu, DELAI_MS);
+        }
+
+        // aucun autre message commençant par attendu pendant SILENCE_MS : un seul shard a répondu
+        void aucun(String attendu) throws InterruptedException {
+            assertNull("Réponse en double pour " + nom, attendre(attendu, SILENCE_MS));
+        }
+
+        private String attendre(String attendu, long delaiMs) throws InterruptedException {
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delaiMs);
+            long reste;
+            while ((reste = limite - System.nanoTime()) > 0) {
+                String message = boite.poll(reste, TimeUnit.NANOSECONDS);
+                if (message != null && message.startsWith(attendu)) {
+                    return message;
+                }
+            }
+            return null;
+        }
+
+        void fermer() {
+            transport.close();
+        }
+    }
+}
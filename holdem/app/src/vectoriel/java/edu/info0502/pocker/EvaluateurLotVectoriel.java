@@ -0,0 +1,174 @@
+package edu.info0502.pocker;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Version vectorielle d'EvaluateurMain : chaque voie d'un IntVector évalue une main.
+// Toutes les combinaisons sont calculées sur toutes les voies puis choisies par masque,
+// de la plus faible à la plus forte, ce qui donne les mêmes rangs que l'évaluateur scalaire.
+// Compilée à part (ensemble de sources vectoriel, seul à utiliser le module jdk.incubator.vector)
+// et chargée par réflexion si le module est présent au lancement (voir EvaluateurLot).
+final class EvaluateurLotVectoriel implements EvaluateurLot.Evaluation {
+
+    private static final VectorSpecies<Integer> ESPECE = IntVector.SPECIES_PREFERRED;
+    private static final int MASQUE_COULEUR = 0x1FFF;
+
+    EvaluateurLotVectoriel() {
+    }
+
+    @Override
+    public int largeur() {
+        return ESPECE.length();
+    }
+
+    @Override
+    public void evaluer(long[] masques, int[] rangs, int nombre) {
+        int largeur = ESPECE.length();
+        int[] coeurs = new int[largeur];
+        int[] carreaux = new int[largeur];
+        int[] piques = new int[largeur];
+        int[] trefles = new int[largeur];
+
+        int i = 0;
+        for (; i + largeur <= nombre; i += largeur) {
+            for (int j = 0; j < largeur; j++) {
+                long masque = masques[i + j];
+                coeurs[j] = (int) masque & MASQUE_COULEUR;
+                carreaux[j] = (int) (masque >>> 13) & MASQUE_COULEUR;
+                piques[j] = (int) (masque >>> 26) & MASQUE_COULEUR;
+                trefles[j] = (int) (masque >>> 39) & MASQUE_COULEUR;
+            }
+            evaluer(IntVector.fromArray(ESPECE, coeurs, 0), IntVector.fromArray(ESPECE, carreaux, 0),
+                    IntVector.fromArray(ESPECE, piques, 0), IntVector.fromArray(ESPECE, trefles, 0))
+                    .intoArray(rangs, i);
+        }
+        for (; i < nombre; i++) {
+            rangs[i] = EvaluateurMain.evaluer(masques[i]);
+        }
+    }
+
+    private static IntVector evaluer(IntVector a, IntVector b, IntVector c, IntVector d) {
+        IntVector auMoins1 = a.or(b).or(c).or(d);
+        IntVector auMoins2 = a.and(b).or(a.and(c)).or(a.and(d)).or(b.and(c)).or(b.and(d)).or(c.and(d));
+        IntVector auMoins3 = a.and(b).and(c).or(a.and(b).and(d)).or(a.and(c).and(d)).or(b.and(c).and(d));
+        IntVector quatre = a.and(b).and(c).and(d);
+        IntVector couleur = couleur(a).or(couleur(b)).or(couleur(c)).or(couleur(d));
+
+        // carte haute
+        IntVector rang = plusHautes(auMoins1, 5).or(categorie(CombinaisonPoker.CARTE_HAUTE));
+
+        // paire
+        IntVector paire = plusHaute(auMoins2);
+        rang = rang.blend(categorie(CombinaisonPoker.PAIRE)
+                        .or(paire.lanewise(VectorOperators.LSHL, 16))
+                        .or(plusHautes(sans(auMoins1, paire), 3).lanewise(VectorOperators.LSHR, 4)),
+                auMoins2.compare(VectorOperators.NE, 0));
+
+        // deux paires
+        IntVector basse = plusHaute(sans(auMoins2, paire));
+        IntVector kicker = plusHaute(sans(sans(auMoins1, paire), basse));
+        rang = rang.blend(categorie(CombinaisonPoker.DEUX_PAIRES)
+                        .or(paire.lanewise(VectorOperators.LSHL, 16))
+                        .or(basse.lanewise(VectorOperators.LSHL, 12))
+                        .or(kicker.lanewise(VectorOperators.LSHL, 8)),
+                auMoins2.lanewise(VectorOperators.BIT_COUNT).compare(VectorOperators.GE, 2));
+
+        // brelan
+        IntVector brelan = plusHaute(auMoins3);
+        VectorMask<Integer> aBrelan = auMoins3.compare(VectorOperators.NE, 0);
+        rang = rang.blend(categorie(CombinaisonPoker.BRELAN)
+                        .or(brelan.lanewise(VectorOperators.LSHL, 16))
+                        .or(plusHautes(sans(auMoins1, brelan), 2).lanewise(VectorOperators.LSHR, 4)),
+                aBrelan);
+
+        // quinte
+        IntVector hauteur = hauteurQuinte(auMoins1);
+        rang = rang.blend(categorie(CombinaisonPoker.QUINTE).or(hauteur.lanewise(VectorOperators.LSHL, 16)),
+                hauteur.compare(VectorOperators.GE, 0));
+
+        // couleur
+        VectorMask<Integer> aCouleur = couleur.compare(VectorOperators.NE, 0);
+        rang = rang.blend(categorie(CombinaisonPoker.COULEUR).or(plusHautes(couleur, 5)), aCouleur);
+
+        // full
+        IntVector pairesDuFull = sans(auMoins2, brelan);
+        rang = rang.blend(categorie(CombinaisonPoker.FULL)
+                        .or(brelan.lanewise(VectorOperators.LSHL, 16))
+                        .or(plusHaute(pairesDuFull).lanewise(VectorOperators.LSHL, 12)),
+                aBrelan.and(pairesDuFull.compare(VectorOperators.NE, 0)));
+
+        // carré
+        IntVector carre = plusHaute(quatre);
+        rang = rang.blend(categorie(CombinaisonPoker.CARRE)
+                        .or(carre.lanewise(VectorOperators.LSHL, 16))
+                        .or(plusHaute(sans(auMoins1, carre)).lanewise(VectorOperators.LSHL, 12)),
+                quatre.compare(VectorOperators.NE, 0));
+
+        // quinte flush et quinte flush royale
+        IntVector hauteurFlush = hauteurQuinte(couleur);
+        rang = rang.blend(categorie(CombinaisonPoker.QUINTE_FLUSH).or(hauteurFlush.lanewise(VectorOperators.LSHL, 16)),
+                aCouleur.and(hauteurFlush.compare(VectorOperators.GE, 0)));
+        rang = rang.blend(categorie(CombinaisonPoker.QUINTE_FLUSH_ROYALE)
+                        .or(hauteurFlush.lanewise(VectorOperators.LSHL, 16)),
+                aCouleur.and(hauteurFlush.compare(VectorOperators.EQ, Valeur.AS.ordinal())));
+        return rang;
+    }
+
+    private static IntVector categorie(CombinaisonPoker combinaison) {
+        return IntVector.broadcast(ESPECE, combinaison.getValeur() << EvaluateurMain.DECALAGE_COMBINAISON);
+    }
+
+    // les valeurs d'une couleur d'au moins 5 cartes, 0 sinon
+    private static IntVector couleur(IntVector valeurs) {
+        return valeurs.blend(0, valeurs.lanewise(VectorOperators.BIT_COUNT).compare(VectorOperators.LT, 5));
+    }
+
+    // valeur la plus haute, -1 pour un masque vide
+    private static IntVector plusHaute(IntVector valeurs) {
+        return IntVector.broadcast(ESPECE, 31).sub(valeurs.lanewise(VectorOperators.LEADING_ZEROS_COUNT));
+    }
+
+    // retire une valeur du masque (sans effet pour -1, le bit 31 n'étant jamais utilisé)
+    private static IntVector sans(IntVector valeurs, IntVector valeur) {
+        return valeurs.and(IntVector.broadcast(ESPECE, 1).lanewise(VectorOperators.LSHL, valeur).not());
+    }
+
+    // sans boucle : un vecteur qui traverse une boucle n'est pas toujours gardé en registre par le JIT
+    private static IntVector plusHautes(IntVector valeurs, int n) {
+        IntVector resultat = place(valeurs, 16);
+        if (n > 1) {
+            valeurs = sans(valeurs, plusHaute(valeurs));
+            resultat = resultat.or(place(valeurs, 12));
+        }
+        if (n > 2) {
+            valeurs = sans(valeurs, plusHaute(valeurs));
+            resultat = resultat.or(place(valeurs, 8));
+        }
+        if (n > 3) {
+            valeurs = sans(valeurs, plusHaute(valeurs));
+            resultat = resultat.or(place(valeurs, 4));
+        }
+        if (n > 4) {
+            valeurs = sans(valeurs, plusHaute(valeurs));
+            resultat = resultat.or(place(valeurs, 0));
+        }
+        return resultat;
+    }
+
+    // valeur la plus haute décalée, 0 pour un masque vide
+    private static IntVector place(IntVector valeurs, int decalage) {
+        return plusHaute(valeurs).lanewise(VectorOperators.LSHL, decalage).blend(0, valeurs.compare(VectorOperators.EQ, 0));
+    }
+
+    private static IntVector hauteurQuinte(IntVector valeurs) {
+        IntVector etendu = valeurs.lanewise(VectorOperators.LSHL, 1).or(valeurs.lanewise(VectorOperators.LSHR, 12));
+        IntVector quintes = etendu.and(etendu.lanewise(VectorOperators.LSHL, 1))
+                .and(etendu.lanewise(VectorOperators.LSHL, 2))
+                .and(etendu.lanewise(VectorOperators.LSHL, 3))
+                .and(etendu.lanewise(VectorOperators.LSHL, 4));
+        // -1 - 1 = -2 quand il n'y a pas de quinte : la comparaison à 0 reste valable
+        return plusHaute(quintes).sub(1);
+    }
+}